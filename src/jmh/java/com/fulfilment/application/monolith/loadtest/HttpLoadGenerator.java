@@ -0,0 +1,178 @@
+package com.fulfilment.application.monolith.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Closed-loop HTTP load against a running instance: every client sends its next GET as soon as the previous one
+ * answered. Reports throughput and latency percentiles, so that runs with different execution settings (worker
+ * pool size, bulkhead, virtual threads) can be compared.
+ *
+ * <p>Settings are system properties: {@code load.url} (http://localhost:8080), {@code load.paths}
+ * (/warehouse,/store,/product), {@code load.clients} (64), {@code load.warmup} and {@code load.duration} in seconds
+ * (5 and 30), {@code load.output} (target/load-result.json).
+ */
+public class HttpLoadGenerator {
+
+  public static void main(String[] args) throws Exception {
+    var baseUrl = System.getProperty("load.url", "http://localhost:8080");
+    var paths = System.getProperty("load.paths", "/warehouse,/store,/product").split(",");
+    int clients = Integer.getInteger("load.clients", 64);
+    var warmup = Duration.ofSeconds(Integer.getInteger("load.warmup", 5));
+    var duration = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+    var output = Path.of(System.getProperty("load.output", "target/load-result.json"));
+
+    var httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    var requests = Arrays.stream(paths)
+        .map(path -> HttpRequest.newBuilder(URI.create(baseUrl + path.strip())).GET().build())
+        .toArray(HttpRequest[]::new);
+
+    long start = System.nanoTime();
+    long measureFrom = start + warmup.toNanos();
+    long measureUntil = measureFrom + duration.toNanos();
+    var results = new ArrayList<ClientResult>(clients);
+    var done = new CountDownLatch(clients);
+    for (int i = 0; i < clients; i++) {
+      var result = new ClientResult();
+      results.add(result);
+      int offset = i;
+      var thread = new Thread(() -> {
+        try {
+          run(httpClient, requests, offset, measureFrom, measureUntil, result);
+        } finally {
+          done.countDown();
+        }
+      }, "load-client-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+    done.await();
+
+    var summary = Summary.of(results, duration, clients);
+    System.out.println(summary.describe());
+    Files.createDirectories(output.toAbsolutePath().getParent());
+    Files.writeString(output, summary.toJson(), StandardCharsets.UTF_8);
+    System.out.println("Load test result is saved to " + output.toAbsolutePath());
+  }
+
+  private static void run(HttpClient httpClient, HttpRequest[] requests, int offset, long measureFrom,
+      long measureUntil, ClientResult result) {
+    for (int n = offset; ; n++) {
+      long sent = System.nanoTime();
+      if (sent >= measureUntil) {
+        return;
+      }
+      int status;
+      try {
+        status = httpClient.send(requests[n % requests.length], HttpResponse.BodyHandlers.discarding()).statusCode();
+      } catch (IOException e) {
+        status = -1;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      long answered = System.nanoTime();
+      if (sent >= measureFrom) {
+        result.record(status, answered - sent);
+      }
+    }
+  }
+
+  // owned by a single client thread until it is done
+  private static class ClientResult {
+    private long[] latencies = new long[1024];
+    private int successful;
+    private int rejected;
+    private int failed;
+
+    void record(int status, long latencyNanos) {
+      if (status >= 200 && status < 300) {
+        if (successful == latencies.length) {
+          latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[successful++] = latencyNanos;
+      } else if (status == 503) {
+        rejected++;
+      } else {
+        failed++;
+      }
+    }
+  }
+
+  private static class Summary {
+    final int clients;
+    final long successful;
+    final long rejected;
+    final long failed;
+    final double throughput;
+    final double p50Millis;
+    final double p99Millis;
+    final double p999Millis;
+    final double maxMillis;
+
+    private Summary(int clients, long[] latencies, long rejected, long failed, Duration duration) {
+      this.clients = clients;
+      this.successful = latencies.length;
+      this.rejected = rejected;
+      this.failed = failed;
+      this.throughput = latencies.length / (duration.toNanos() / 1e9);
+      this.p50Millis = percentile(latencies, 0.50);
+      this.p99Millis = percentile(latencies, 0.99);
+      this.p999Millis = percentile(latencies, 0.999);
+      this.maxMillis = latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6;
+    }
+
+    static Summary of(List<ClientResult> results, Duration duration, int clients) {
+      long rejected = 0;
+      long failed = 0;
+      int total = 0;
+      for (ClientResult result : results) {
+        rejected += result.rejected;
+        failed += result.failed;
+        total += result.successful;
+      }
+      var latencies = new long[total];
+      int position = 0;
+      for (ClientResult result : results) {
+        System.arraycopy(result.latencies, 0, latencies, position, result.successful);
+        position += result.successful;
+      }
+      Arrays.sort(latencies);
+      return new Summary(clients, latencies, rejected, failed, duration);
+    }
+
+    // nearest rank, in milliseconds
+    private static double percentile(long[] sorted, double quantile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(quantile * sorted.length);
+      return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    String describe() {
+      return String.format(Locale.ROOT,
+          "clients=%d ok=%d rejected(503)=%d failed=%d throughput=%.1f req/s p50=%.2f ms p99=%.2f ms p99.9=%.2f ms max=%.2f ms",
+          clients, successful, rejected, failed, throughput, p50Millis, p99Millis, p999Millis, maxMillis);
+    }
+
+    String toJson() {
+      return String.format(Locale.ROOT,
+          "{\"clients\":%d,\"successful\":%d,\"rejected\":%d,\"failed\":%d,\"throughput\":%.3f,"
+              + "\"p50Millis\":%.3f,\"p99Millis\":%.3f,\"p999Millis\":%.3f,\"maxMillis\":%.3f}%n",
+          clients, successful, rejected, failed, throughput, p50Millis, p99Millis, p999Millis, maxMillis);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.fulfilment.application.monolith.location;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocationGatewayBenchmark {
+
+  @Param({"10", "10000", "1000000"})
+  public int locations;
+
+  private LocationGateway locationGateway;
+  private String[] identifiers;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    var catalogue = new ArrayList<Location>(locations);
+    identifiers = new String[locations];
+    for (int i = 0; i < locations; i++) {
+      identifiers[i] = "LOCATION-" + i;
+      catalogue.add(new Location(identifiers[i], 1, 100));
+    }
+    locationGateway = new LocationGateway(catalogue);
+  }
+
+  @Benchmark
+  public Location resolveExisting() {
+    next = next + 1 == identifiers.length ? 0 : next + 1;
+    return locationGateway.resolveByIdentifier(identifiers[next]);
+  }
+
+  @Benchmark
+  public Location resolveUnknown() {
+    return locationGateway.resolveByIdentifier("UNKNOWN-001");
+  }
+}
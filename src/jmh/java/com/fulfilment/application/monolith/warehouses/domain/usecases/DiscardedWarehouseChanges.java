@@ -0,0 +1,45 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.NotificationOptions;
+import jakarta.enterprise.util.TypeLiteral;
+import java.lang.annotation.Annotation;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+// the event of the use cases without observers, as for an application nobody listens to
+class DiscardedWarehouseChanges implements Event<WarehouseChanges> {
+
+  @Override
+  public void fire(WarehouseChanges event) {
+  }
+
+  @Override
+  public <U extends WarehouseChanges> CompletionStage<U> fireAsync(U event) {
+    return CompletableFuture.completedFuture(event);
+  }
+
+  @Override
+  public <U extends WarehouseChanges> CompletionStage<U> fireAsync(U event, NotificationOptions options) {
+    return CompletableFuture.completedFuture(event);
+  }
+
+  @Override
+  public Event<WarehouseChanges> select(Annotation... qualifiers) {
+    return this;
+  }
+
+  // discarding every subtype as well: the cast is never observed
+  @Override
+  @SuppressWarnings("unchecked")
+  public <U extends WarehouseChanges> Event<U> select(Class<U> subtype, Annotation... qualifiers) {
+    return (Event<U>) (Event<?>) this;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <U extends WarehouseChanges> Event<U> select(TypeLiteral<U> subtype, Annotation... qualifiers) {
+    return (Event<U>) (Event<?>) this;
+  }
+}
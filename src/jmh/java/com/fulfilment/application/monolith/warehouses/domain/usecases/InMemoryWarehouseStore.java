@@ -0,0 +1,129 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.ConditionalCreateOutcome;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseRevision;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Single-threaded WarehouseStore for the benchmarks: active warehouses by business unit code and by location, with
+ * the location occupancy kept up to date, so that the measures are about the use cases and not the store.
+ */
+class InMemoryWarehouseStore implements WarehouseStore {
+
+  private final Map<String, Warehouse> byBusinessUnitCode = new HashMap<>();
+  private final Map<String, List<Warehouse>> byLocation = new HashMap<>();
+  private final Map<String, LocationOccupancy> occupancies = new HashMap<>();
+
+  @Override
+  public List<Warehouse> getAll() {
+    return List.copyOf(byBusinessUnitCode.values());
+  }
+
+  @Override
+  public List<Warehouse> getAllAfter(String buCode, int limit) {
+    return byBusinessUnitCode.values().stream()
+        .filter(w -> buCode == null || w.businessUnitCode.compareTo(buCode) > 0)
+        .sorted(Comparator.comparing(w -> w.businessUnitCode))
+        .limit(limit)
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  @Override
+  public Stream<Warehouse> streamAllActive() {
+    return byBusinessUnitCode.values().stream().sorted(Comparator.comparing(w -> w.businessUnitCode));
+  }
+
+  @Override
+  public List<Warehouse> getAllByLocation(String location) {
+    return List.copyOf(byLocation.getOrDefault(location, List.of()));
+  }
+
+  @Override
+  public LocationOccupancy getOccupancyByLocation(String location) {
+    return occupancies.getOrDefault(location, LocationOccupancy.EMPTY);
+  }
+
+  @Override
+  public Warehouse create(Warehouse warehouse) {
+    warehouse.createdAt = LocalDateTime.now();
+    warehouse.archivedAt = null;
+    byBusinessUnitCode.put(warehouse.businessUnitCode, warehouse);
+    byLocation.computeIfAbsent(warehouse.location, l -> new ArrayList<>()).add(warehouse);
+    occupancies.merge(warehouse.location, new LocationOccupancy(1, warehouse.capacity, warehouse.stock), InMemoryWarehouseStore::sum);
+    return warehouse;
+  }
+
+  @Override
+  public ConditionalCreateOutcome createIfWithinLimits(Warehouse warehouse, int maxNumberOfWarehouses, int maxCapacity) {
+    var occupancy = getOccupancyByLocation(warehouse.location);
+    boolean alreadyExists = byBusinessUnitCode.containsKey(warehouse.businessUnitCode);
+    boolean created = !alreadyExists && occupancy.numberOfWarehouses < maxNumberOfWarehouses
+        && occupancy.totalCapacity + warehouse.capacity <= maxCapacity;
+    if (created) {
+      create(warehouse);
+    }
+    return new ConditionalCreateOutcome(created, alreadyExists, occupancy);
+  }
+
+  @Override
+  public List<Warehouse> createAll(List<Warehouse> warehouses) {
+    warehouses.forEach(this::create);
+    return warehouses;
+  }
+
+  @Override
+  public void update(Warehouse warehouse) {
+    var active = byBusinessUnitCode.remove(warehouse.businessUnitCode);
+    if (active == null) {
+      return;
+    }
+    active.archivedAt = LocalDateTime.now();
+    byLocation.get(active.location).remove(active);
+    occupancies.merge(active.location, new LocationOccupancy(-1, -active.capacity, -active.stock), InMemoryWarehouseStore::sum);
+  }
+
+  @Override
+  public void remove(Warehouse warehouse) {
+    update(warehouse);
+  }
+
+  @Override
+  public Optional<Warehouse> findByBusinessUnitCode(String buCode) {
+    return Optional.ofNullable(byBusinessUnitCode.get(buCode));
+  }
+
+  @Override
+  public Optional<WarehouseRevision> findRevisionByBusinessUnitCode(String buCode) {
+    return findByBusinessUnitCode(buCode).map(w -> new WarehouseRevision(w.createdAt, w.version));
+  }
+
+  @Override
+  public Set<String> findActiveBusinessUnitCodes(Collection<String> buCodes) {
+    var active = new HashSet<String>();
+    for (String buCode : buCodes) {
+      if (byBusinessUnitCode.containsKey(buCode)) {
+        active.add(buCode);
+      }
+    }
+    return active;
+  }
+
+  private static LocationOccupancy sum(LocationOccupancy a, LocationOccupancy b) {
+    return new LocationOccupancy(
+        a.numberOfWarehouses + b.numberOfWarehouses, a.totalCapacity + b.totalCapacity, a.totalStock + b.totalStock);
+  }
+}
@@ -0,0 +1,95 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import io.vavr.control.Either;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Create and replace against an in-memory store holding {@code warehouses} active warehouses spread over
+ * {@value #LOCATIONS} locations. Locations have no practical limit, so every call goes through all the validations
+ * and succeeds, except in {@link #rejectedCreate()} whose stock exceeds the capacity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WarehouseUseCasesBenchmark {
+
+  private static final int LOCATIONS = 100;
+  // single-threaded: only the domain logic is measured here
+  private static final LocationLock NO_LOCK = locationIdentifiers -> { };
+
+  @Param({"10", "10000", "1000000"})
+  public int warehouses;
+
+  private InMemoryWarehouseStore warehouseStore;
+  private CreateWarehouseUseCase createWarehouseUseCase;
+  private ReplaceWarehouseUseCase replaceWarehouseUseCase;
+  private long created;
+  private int replacements;
+
+  @Setup(Level.Trial)
+  public void seed() {
+    warehouseStore = new InMemoryWarehouseStore();
+    for (int i = 0; i < warehouses; i++) {
+      warehouseStore.create(warehouse("MWH." + i, "LOCATION-" + (i % LOCATIONS), 100, 10));
+    }
+    LocationResolver locationResolver = identifier -> new Location(identifier, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    createWarehouseUseCase = new CreateWarehouseUseCase(warehouseStore, locationResolver, NO_LOCK, new DiscardedWarehouseChanges());
+    replaceWarehouseUseCase = new ReplaceWarehouseUseCase(warehouseStore, locationResolver, NO_LOCK, new DiscardedWarehouseChanges());
+  }
+
+  @TearDown(Level.Iteration)
+  public void removeCreated() {
+    // keeps the store at its seeded size from one iteration to the next
+    for (long i = 0; i < created; i++) {
+      warehouseStore.update(warehouse("NEW." + i, null, 0, 0));
+    }
+    created = 0;
+  }
+
+  @Benchmark
+  public Either<WarehouseError, Warehouse> create() {
+    return createWarehouseUseCase.create(warehouse("NEW." + created++, "LOCATION-" + (created % LOCATIONS), 100, 10));
+  }
+
+  @Benchmark
+  public Either<WarehouseError, Warehouse> rejectedCreate() {
+    // refused by the first, in-memory rule: neither the store nor the lock is reached
+    return createWarehouseUseCase.create(warehouse("NEW.REJECTED", "LOCATION-0", 10, 100));
+  }
+
+  @Benchmark
+  public Either<WarehouseError, Warehouse> replace() {
+    // alternates the capacity so that the business unit is really replaced at every call
+    return replaceWarehouseUseCase.replace(warehouse("MWH.0", "LOCATION-0", 100 + (replacements++ & 1), 10));
+  }
+
+  private static Warehouse warehouse(String businessUnitCode, String location, int capacity, int stock) {
+    var warehouse = new Warehouse();
+    warehouse.businessUnitCode = businessUnitCode;
+    warehouse.location = location;
+    warehouse.capacity = capacity;
+    warehouse.stock = stock;
+    return warehouse;
+  }
+}
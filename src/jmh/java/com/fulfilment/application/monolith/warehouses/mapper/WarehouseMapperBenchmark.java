@@ -0,0 +1,69 @@
+package com.fulfilment.application.monolith.warehouses.mapper;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Cost of the conversions a warehouse goes through between the database, the domain and the API. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WarehouseMapperBenchmark {
+
+  private DbWarehouse dbWarehouse;
+  private Warehouse warehouse;
+  private com.warehouse.api.beans.Warehouse apiWarehouse;
+
+  @Setup
+  public void setUp() {
+    dbWarehouse = new DbWarehouse();
+    dbWarehouse.id = 1L;
+    dbWarehouse.businessUnitCode = "MWH.001";
+    dbWarehouse.location = "ZWOLLE-001";
+    dbWarehouse.capacity = 100;
+    dbWarehouse.stock = 10;
+    dbWarehouse.createdAt = LocalDateTime.now();
+    warehouse = dbWarehouse.toWarehouse();
+    apiWarehouse = WarehouseMapper.INSTANCE.warehouseToPojoWarehouse(warehouse);
+  }
+
+  @Benchmark
+  public Warehouse dbWarehouseToWarehouse() {
+    return dbWarehouse.toWarehouse();
+  }
+
+  @Benchmark
+  public DbWarehouse warehouseToDbWarehouse() {
+    return WarehouseMapper.INSTANCE.warehouseDtoToDbWarehouse(warehouse);
+  }
+
+  @Benchmark
+  public com.warehouse.api.beans.Warehouse warehouseToApiWarehouse() {
+    return WarehouseMapper.INSTANCE.warehouseToPojoWarehouse(warehouse);
+  }
+
+  @Benchmark
+  public Warehouse apiWarehouseToWarehouse() {
+    return WarehouseMapper.INSTANCE.pojoWarehouseToWarehouse(apiWarehouse);
+  }
+
+  @Benchmark
+  public com.warehouse.api.beans.Warehouse dbWarehouseToApiWarehouse() {
+    // the full read path of GET /warehouse/{id}
+    return WarehouseMapper.INSTANCE.warehouseToPojoWarehouse(dbWarehouse.toWarehouse());
+  }
+}
@@ -0,0 +1,85 @@
+package com.fulfilment.application.monolith.warehouses.mapper;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-row cost of turning a page of selected columns into response bodies, through the entity and the domain model
+ * (the GET /warehouse path before the projection) or straight into the API bean (the projection). Read the
+ * {@code gc.alloc.rate.norm} column: bytes allocated per row. The entity path is a lower bound, as it leaves out the
+ * bookkeeping of the persistence context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WarehouseReadPathBenchmark {
+
+  private static final int ROWS = 100;
+
+  // id, businessUnitCode, location, capacity, stock, createdAt, archivedAt, version: as the JDBC driver hands them
+  private Object[][] rows;
+
+  @Setup
+  public void setUp() {
+    rows = new Object[ROWS][];
+    var createdAt = LocalDateTime.now();
+    for (int i = 0; i < ROWS; i++) {
+      rows[i] = new Object[] {(long) i, String.format("MWH.%03d", i), "ZWOLLE-001", 100, i, createdAt, null, 0L};
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public List<com.warehouse.api.beans.Warehouse> throughEntityAndDomain() {
+    // as before the projection: the query result list, mapped to the domain, then to the response bodies
+    var entities = new ArrayList<DbWarehouse>(ROWS);
+    for (Object[] row : rows) {
+      var entity = new DbWarehouse();
+      entity.id = (Long) row[0];
+      entity.businessUnitCode = (String) row[1];
+      entity.location = (String) row[2];
+      entity.capacity = (Integer) row[3];
+      entity.stock = (Integer) row[4];
+      entity.createdAt = (LocalDateTime) row[5];
+      entity.archivedAt = (LocalDateTime) row[6];
+      entity.version = (Long) row[7];
+      entities.add(entity);
+    }
+    var warehouses = entities.stream().map(DbWarehouse::toWarehouse).collect(Collectors.toUnmodifiableList());
+    return warehouses.stream().map(WarehouseMapper.INSTANCE::warehouseToPojoWarehouse).toList();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public List<com.warehouse.api.beans.Warehouse> projectedIntoApiBean() {
+    var page = new ArrayList<com.warehouse.api.beans.Warehouse>(ROWS);
+    for (Object[] row : rows) {
+      // what the constructor expression of WarehouseRepository.getApiWarehousesAfter does, by alias
+      var warehouse = new com.warehouse.api.beans.Warehouse();
+      warehouse.setBusinessUnitCode((String) row[1]);
+      warehouse.setLocation((String) row[2]);
+      warehouse.setCapacity((Integer) row[3]);
+      warehouse.setStock((Integer) row[4]);
+      page.add(warehouse);
+    }
+    return page;
+  }
+}
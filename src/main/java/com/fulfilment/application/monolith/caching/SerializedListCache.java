@@ -0,0 +1,137 @@
+package com.fulfilment.application.monolith.caching;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * The JSON body of a list endpoint, serialized once and then served as is until a write invalidates it.
+ *
+ * <p>The body is tagged with a hash of its content, so a client sending it back in {@code If-None-Match} gets a
+ * {@code 304} without a body, and the tag stays valid across restarts and instances serving the same data.
+ *
+ * <p>A write invalidates the body right away and once more when its transaction completes: a list read while the
+ * write was not committed yet is never kept. Each resource gets its own instance.
+ *
+ * <p>Writes only invalidate the body on the instance serving them: it is also reloaded once older than
+ * {@code list-cache.max-age}, which bounds how long the writes made through other instances go unseen.
+ */
+@Dependent
+public class SerializedListCache {
+
+  private static final class Snapshot {
+    final byte[] body;
+    final EntityTag etag;
+    // System.nanoTime() when loading started
+    final long loadedAt;
+
+    Snapshot(byte[] body, EntityTag etag, long loadedAt) {
+      this.body = body;
+      this.etag = etag;
+      this.loadedAt = loadedAt;
+    }
+  }
+
+  private final ObjectMapper objectMapper;
+  private final TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+  private final long maxAgeNanos;
+  private final LongSupplier nanoTime;
+
+  // guarded by this; bumped by every invalidation so that a list loaded across one is not kept
+  private long generation;
+  private volatile Snapshot snapshot;
+
+  @Inject
+  public SerializedListCache(
+      ObjectMapper objectMapper, TransactionSynchronizationRegistry transactionSynchronizationRegistry,
+      @ConfigProperty(name = "list-cache.max-age", defaultValue = "1M") Duration maxAge) {
+    this(objectMapper, transactionSynchronizationRegistry, maxAge, System::nanoTime);
+  }
+
+  SerializedListCache(ObjectMapper objectMapper, TransactionSynchronizationRegistry transactionSynchronizationRegistry,
+      Duration maxAge, LongSupplier nanoTime) {
+    this.objectMapper = objectMapper;
+    this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+    this.maxAgeNanos = maxAge.toNanos();
+    this.nanoTime = nanoTime;
+  }
+
+  /** Answers with the cached body, loading it through {@code loader} first when there is none or it is too old. */
+  public Response get(Request request, Supplier<?> loader) {
+    Snapshot current = snapshot;
+    if (current == null || nanoTime.getAsLong() - current.loadedAt >= maxAgeNanos) {
+      current = load(loader);
+    }
+    var notModified = request.evaluatePreconditions(current.etag);
+    if (notModified != null) {
+      return notModified.build();
+    }
+    return Response.ok(current.body, MediaType.APPLICATION_JSON_TYPE).tag(current.etag).build();
+  }
+
+  /** Drops the cached body, now and, when called in a transaction, again once it has completed. */
+  public void invalidate() {
+    drop();
+    if (transactionSynchronizationRegistry.getTransactionKey() != null) {
+      transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+          drop();
+        }
+      });
+    }
+  }
+
+  private Snapshot load(Supplier<?> loader) {
+    long loadedGeneration;
+    synchronized (this) {
+      loadedGeneration = generation;
+    }
+    long loadedAt = nanoTime.getAsLong();
+    byte[] body;
+    try {
+      body = objectMapper.writeValueAsBytes(loader.get());
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Cannot serialize the list response", e);
+    }
+    var loaded = new Snapshot(body, new EntityTag(hash(body)), loadedAt);
+    synchronized (this) {
+      // invalidated while loading: served to this request only
+      if (generation == loadedGeneration) {
+        snapshot = loaded;
+      }
+    }
+    return loaded;
+  }
+
+  private synchronized void drop() {
+    generation++;
+    snapshot = null;
+  }
+
+  private static String hash(byte[] body) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body), 0, 16);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
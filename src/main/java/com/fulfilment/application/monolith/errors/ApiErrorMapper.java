@@ -0,0 +1,110 @@
+package com.fulfilment.application.monolith.errors;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Turns every exception escaping a resource into {@code {"exceptionType": ..., "code": ..., "error": ...}}.
+ *
+ * <p>The body is written straight to bytes: the part that only depends on the exception class is encoded once and
+ * reused, so an error costs about what a small successful response does. Responses prepared by the resource, which
+ * already carry an entity, are returned as they are; the headers of the others, like {@code Retry-After}, are kept.
+ *
+ * <p>Server errors are logged with their stack trace, client errors only at debug level; both are sampled per
+ * exception class by an {@link ErrorLogSampler}.
+ */
+@Provider
+public class ApiErrorMapper implements ExceptionMapper<Exception> {
+
+  private static final Logger LOGGER = Logger.getLogger(ApiErrorMapper.class.getName());
+
+  private static final ClassValue<byte[]> BODY_PREFIXES = new ClassValue<>() {
+    @Override
+    protected byte[] computeValue(Class<?> type) {
+      // the stackless exceptions stand for the WebApplicationException they replaced: clients see the same body
+      var reportedType = ApiException.class.isAssignableFrom(type) ? WebApplicationException.class : type;
+      return ("{\"exceptionType\":\"" + new String(JsonStringEncoder.getInstance().quoteAsString(reportedType.getName()))
+          + "\",\"code\":").getBytes(StandardCharsets.UTF_8);
+    }
+  };
+  private static final byte[] ERROR_FIELD = ",\"error\":\"".getBytes(StandardCharsets.UTF_8);
+
+  private final ErrorLogSampler logSampler;
+
+  @Inject
+  public ApiErrorMapper(
+      @ConfigProperty(name = "api.errors.log.max-per-interval", defaultValue = "10") int maxPerInterval,
+      @ConfigProperty(name = "api.errors.log.interval", defaultValue = "1M") Duration interval) {
+    this(new ErrorLogSampler(maxPerInterval, interval.toNanos(), System::nanoTime));
+  }
+
+  ApiErrorMapper(ErrorLogSampler logSampler) {
+    this.logSampler = logSampler;
+  }
+
+  @Override
+  public Response toResponse(Exception exception) {
+    if (exception instanceof WebApplicationException webApplicationException) {
+      var response = webApplicationException.getResponse();
+      log(exception, response.getStatus());
+      if (response.hasEntity()) {
+        return response;
+      }
+      return Response.fromResponse(response)
+          .type(MediaType.APPLICATION_JSON_TYPE)
+          .entity(body(exception, response.getStatus()))
+          .build();
+    }
+    log(exception, 500);
+    return Response.status(500).type(MediaType.APPLICATION_JSON_TYPE).entity(body(exception, 500)).build();
+  }
+
+  static byte[] body(Exception exception, int status) {
+    byte[] prefix = BODY_PREFIXES.get(exception.getClass());
+    byte[] code = Integer.toString(status).getBytes(StandardCharsets.US_ASCII);
+    byte[] error = exception.getMessage() == null ? null : JsonStringEncoder.getInstance().quoteAsUTF8(exception.getMessage());
+    int length = prefix.length + code.length + 1 + (error == null ? 0 : ERROR_FIELD.length + error.length + 1);
+    byte[] body = new byte[length];
+    int position = append(body, 0, prefix);
+    position = append(body, position, code);
+    if (error != null) {
+      position = append(body, position, ERROR_FIELD);
+      position = append(body, position, error);
+      body[position++] = '"';
+    }
+    body[position] = '}';
+    return body;
+  }
+
+  private void log(Exception exception, int status) {
+    if (status >= 500) {
+      long suppressed = logSampler.admit(exception.getClass());
+      if (suppressed >= 0) {
+        LOGGER.errorf(exception, "Failed to handle request%s", suppressedSuffix(suppressed));
+      }
+    } else if (LOGGER.isDebugEnabled()) {
+      long suppressed = logSampler.admit(exception.getClass());
+      if (suppressed >= 0) {
+        LOGGER.debugf("Rejected request with %d: %s%s", status, exception.getMessage(), suppressedSuffix(suppressed));
+      }
+    }
+  }
+
+  private static String suppressedSuffix(long suppressed) {
+    return suppressed == 0 ? "" : " (" + suppressed + " more since the last one not logged)";
+  }
+
+  private static int append(byte[] target, int position, byte[] source) {
+    System.arraycopy(source, 0, target, position, source.length);
+    return position + source.length;
+  }
+}
@@ -0,0 +1,41 @@
+package com.fulfilment.application.monolith.errors;
+
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * An expected failure of a request: a missing resource, an invalid body, a conflicting write or a request shed under
+ * load. These are answered to clients many times a second, so they record no stack trace; {@link ApiErrorMapper}
+ * turns them into the error body.
+ */
+public class ApiException extends WebApplicationException {
+
+  public ApiException(String message, int status) {
+    super(message, status);
+  }
+
+  public ApiException(String message, Response response) {
+    super(message, response);
+  }
+
+  public ApiException(Response response) {
+    super(response);
+  }
+
+  public static ApiException notFound(String message) {
+    return new ApiException(message, 404);
+  }
+
+  public static ApiException unprocessable(String message) {
+    return new ApiException(message, 422);
+  }
+
+  public static ApiException conflict(String message) {
+    return new ApiException(message, 409);
+  }
+
+  @Override
+  public synchronized Throwable fillInStackTrace() {
+    return this;
+  }
+}
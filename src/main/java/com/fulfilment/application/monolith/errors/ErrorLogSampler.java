@@ -0,0 +1,54 @@
+package com.fulfilment.application.monolith.errors;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets through at most {@code maxPerInterval} log lines per exception class and interval, counting the others so that
+ * the next line let through can tell how many were dropped. A flood of one error costs a few atomic operations per
+ * request instead of a formatted stack trace.
+ */
+final class ErrorLogSampler {
+
+  private static final class Window {
+    final AtomicLong start;
+    final AtomicInteger admitted = new AtomicInteger();
+    final AtomicLong suppressed = new AtomicLong();
+
+    Window(long start) {
+      this.start = new AtomicLong(start);
+    }
+  }
+
+  private final int maxPerInterval;
+  private final long intervalNanos;
+  private final LongSupplier nanoClock;
+  private final ClassValue<Window> windows = new ClassValue<>() {
+    @Override
+    protected Window computeValue(Class<?> type) {
+      return new Window(nanoClock.getAsLong());
+    }
+  };
+
+  ErrorLogSampler(int maxPerInterval, long intervalNanos, LongSupplier nanoClock) {
+    this.maxPerInterval = maxPerInterval;
+    this.intervalNanos = intervalNanos;
+    this.nanoClock = nanoClock;
+  }
+
+  /** Returns -1 when the error must not be logged, otherwise how many of its class were dropped since the last one. */
+  long admit(Class<?> errorType) {
+    var window = windows.get(errorType);
+    long now = nanoClock.getAsLong();
+    long start = window.start.get();
+    if (now - start >= intervalNanos && window.start.compareAndSet(start, now)) {
+      window.admitted.set(0);
+    }
+    if (window.admitted.incrementAndGet() > maxPerInterval) {
+      window.suppressed.incrementAndGet();
+      return -1;
+    }
+    return window.suppressed.getAndSet(0);
+  }
+}
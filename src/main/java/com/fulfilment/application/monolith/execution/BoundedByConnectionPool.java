@@ -0,0 +1,17 @@
+package com.fulfilment.application.monolith.execution;
+
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Admits the invocations through the {@link ConnectionPoolBulkhead}, answering 503 when it stays full.
+ *
+ * @see BoundedByConnectionPoolInterceptor
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface BoundedByConnectionPool {}
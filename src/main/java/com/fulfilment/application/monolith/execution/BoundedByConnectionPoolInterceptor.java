@@ -0,0 +1,33 @@
+package com.fulfilment.application.monolith.execution;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+// outermost, so that no transaction and no connection is held while waiting
+@BoundedByConnectionPool
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE)
+public class BoundedByConnectionPoolInterceptor {
+
+  private final ConnectionPoolBulkhead bulkhead;
+
+  @Inject
+  public BoundedByConnectionPoolInterceptor(ConnectionPoolBulkhead bulkhead) {
+    this.bulkhead = bulkhead;
+  }
+
+  @AroundInvoke
+  Object admit(InvocationContext context) throws Exception {
+    if (!bulkhead.enter()) {
+      throw ConnectionPoolBulkhead.overloaded();
+    }
+    try {
+      return context.proceed();
+    } finally {
+      bulkhead.leave();
+    }
+  }
+}
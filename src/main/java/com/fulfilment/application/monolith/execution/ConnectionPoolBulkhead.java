@@ -0,0 +1,87 @@
+package com.fulfilment.application.monolith.execution;
+
+import com.fulfilment.application.monolith.errors.ApiException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Admits at most as many requests to the database as there are connections in the pool.
+ *
+ * <p>The worker pool is much larger than the connection pool, and on virtual threads request concurrency is not
+ * bounded at all: every request beyond the pool size would wait inside the connection pool until its acquisition
+ * timeout fails it. Here they queue, in arrival order, for at most {@code max-wait} and are then turned away, so that
+ * an overloaded instance answers quickly instead of letting the queue grow without bound.
+ */
+@Singleton
+public class ConnectionPoolBulkhead implements MeterBinder {
+
+  private static final int RETRY_AFTER_SECONDS = 1;
+
+  private final Semaphore permits;
+  private final long maxWaitNanos;
+
+  @Inject
+  public ConnectionPoolBulkhead(
+      @ConfigProperty(name = "execution.bulkhead.max-concurrent-requests") int maxConcurrentRequests,
+      @ConfigProperty(name = "execution.bulkhead.max-wait", defaultValue = "2S") Duration maxWait) {
+    this.permits = new Semaphore(maxConcurrentRequests, true);
+    this.maxWaitNanos = maxWait.toNanos();
+  }
+
+  /** Waits for a slot; false when none freed up in time. A true result must be followed by {@link #leave()}. */
+  public boolean enter() throws InterruptedException {
+    return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void leave() {
+    permits.release();
+  }
+
+  /**
+   * The body written while holding a slot. A streamed body reads the database once the resource method has returned,
+   * after {@link BoundedByConnectionPoolInterceptor} has given its slot back: it queues for a slot of its own.
+   */
+  public StreamingOutput bounded(StreamingOutput body) {
+    return output -> {
+      try {
+        if (!enter()) {
+          throw overloaded();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for the database");
+      }
+      try {
+        body.write(output);
+      } finally {
+        leave();
+      }
+    };
+  }
+
+  // 503, asking the client to come back shortly
+  static ApiException overloaded() {
+    return new ApiException("Too many concurrent requests, try again later.",
+        Response.status(Response.Status.SERVICE_UNAVAILABLE).header("Retry-After", RETRY_AFTER_SECONDS).build());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("execution.bulkhead.available", permits, Semaphore::availablePermits)
+        .description("Requests that can still reach the database without waiting")
+        .register(registry);
+    Gauge.builder("execution.bulkhead.waiting", permits, Semaphore::getQueueLength)
+        .description("Requests waiting for the database")
+        .register(registry);
+  }
+}
@@ -1,29 +1,97 @@
 package com.fulfilment.application.monolith.location;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationCatalogue;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 @ApplicationScoped
-public class LocationGateway implements LocationResolver {
-
-  private static final List<Location> locations = new ArrayList<>();
-
-  static {
-    locations.add(new Location("ZWOLLE-001", 1, 40));
-    locations.add(new Location("ZWOLLE-002", 2, 50));
-    locations.add(new Location("AMSTERDAM-001", 5, 100));
-    locations.add(new Location("AMSTERDAM-002", 3, 75));
-    locations.add(new Location("TILBURG-001", 1, 40));
-    locations.add(new Location("HELMOND-001", 1, 45));
-    locations.add(new Location("EINDHOVEN-001", 2, 70));
-    locations.add(new Location("VETSBY-001", 1, 90));
+public class LocationGateway implements LocationResolver, LocationCatalogue {
+
+  private static final List<Location> DEFAULT_LOCATIONS = List.of(
+      new Location("ZWOLLE-001", 1, 40),
+      new Location("ZWOLLE-002", 2, 50),
+      new Location("AMSTERDAM-001", 5, 100),
+      new Location("AMSTERDAM-002", 3, 75),
+      new Location("TILBURG-001", 1, 40),
+      new Location("HELMOND-001", 1, 45),
+      new Location("EINDHOVEN-001", 2, 70),
+      new Location("VETSBY-001", 1, 90));
+
+  // built once, never mutated: lookups are a single hash probe whatever the catalogue size
+  private final Map<String, Location> locationsByIdentifier;
+
+  public LocationGateway() {
+    this(DEFAULT_LOCATIONS);
+  }
+
+  @Inject
+  public LocationGateway(@ConfigProperty(name = "location.catalogue.file") Optional<String> catalogueFile) {
+    this(catalogueFile.map(file -> loadCatalogue(Path.of(file))).orElse(DEFAULT_LOCATIONS));
+  }
+
+  LocationGateway(Collection<Location> locations) {
+    var index = new HashMap<String, Location>(locations.size() * 2);
+    for (Location location : locations) {
+      if (location.identification == null) {
+        throw new IllegalArgumentException("Location without identification in catalogue");
+      }
+      if (index.putIfAbsent(location.identification, location) != null) {
+        throw new IllegalArgumentException("Duplicate location " + location.identification + " in catalogue");
+      }
+    }
+    this.locationsByIdentifier = Map.copyOf(index);
   }
 
   @Override
   public Location resolveByIdentifier(String identifier) {
-    return locations.stream().filter(l -> l.identification != null && l.identification.equals(identifier)).findFirst().orElse(null);
+    if (identifier == null) {
+      return null;
+    }
+    return locationsByIdentifier.get(identifier);
+  }
+
+  @Override
+  public Collection<Location> allLocations() {
+    return locationsByIdentifier.values();
+  }
+
+  /**
+   * Reads a catalogue with one location per line: {@code identification,maxNumberOfWarehouses,maxCapacity}.
+   * Blank lines and lines starting with {@code #} are skipped.
+   */
+  static List<Location> loadCatalogue(Path file) {
+    try (var lines = Files.lines(file, StandardCharsets.UTF_8)) {
+      var locations = new ArrayList<Location>();
+      lines.map(String::strip)
+          .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+          .forEach(line -> locations.add(parseLocation(line)));
+      return locations;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read location catalogue " + file, e);
+    }
+  }
+
+  private static Location parseLocation(String line) {
+    var columns = line.split(",");
+    if (columns.length != 3) {
+      throw new IllegalArgumentException("Invalid location catalogue line: " + line);
+    }
+    return new Location(
+        columns[0].strip(), Integer.parseInt(columns[1].strip()), Integer.parseInt(columns[2].strip()));
   }
 }
@@ -0,0 +1,37 @@
+package com.fulfilment.application.monolith.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Hits, misses and puts of every second-level cache region are published by the Hibernate metrics
+ * ({@code quarkus.hibernate-orm.metrics.enabled}). Hibernate does not count evictions, so the number of entries
+ * held by each region is published as well: a region whose puts keep growing while its size is stuck at the
+ * configured {@code object-count} is evicting.
+ */
+@Singleton
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+  @Inject SessionFactory sessionFactory;
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Statistics statistics = sessionFactory.getStatistics();
+    for (String region : statistics.getSecondLevelCacheRegionNames()) {
+      CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+      if (regionStatistics == null) {
+        continue;
+      }
+      Gauge.builder("hibernate.second.level.cache.size", regionStatistics, CacheRegionStatistics::getElementCountInMemory)
+          .tag("region", region)
+          .description("Entries held in memory by the second-level cache region")
+          .register(registry);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.fulfilment.application.monolith.products;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fulfilment.application.monolith.errors.ApiException;
+import com.fulfilment.application.monolith.execution.ConnectionPoolBulkhead;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Iterator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+// POST /product/bulk and GET /product/export: products as newline-delimited JSON, one object per line
+@ApplicationScoped
+class ProductNdjson {
+
+  static final String MEDIA_TYPE = "application/x-ndjson";
+
+  private static final byte[] NEWLINE = {'\n'};
+
+  @Inject ProductRepository productRepository;
+  @Inject ObjectMapper objectMapper;
+  @Inject ConnectionPoolBulkhead bulkhead;
+
+  @ConfigProperty(name = "product.bulk.batch-size", defaultValue = "1000")
+  int batchSize;
+
+  @ConfigProperty(name = "product.bulk.transaction-timeout", defaultValue = "15M")
+  Duration transactionTimeout;
+
+  /** Imports every product of the stream in one transaction, parsing a line only when the previous one is queued. */
+  long importAll(InputStream input) {
+    return QuarkusTransaction.requiringNew()
+        .timeout((int) transactionTimeout.toSeconds())
+        .call(() -> {
+          try (MappingIterator<Product> products = objectMapper.readerFor(Product.class).readValues(input)) {
+            return productRepository.persistInBatches(validated(products), batchSize);
+          }
+        });
+  }
+
+  StreamingOutput exportAll() {
+    // the rows are read and written when the body is sent, so the transaction is opened there
+    return bulkhead.bounded(output -> QuarkusTransaction.requiringNew().run(() -> writeAll(output)));
+  }
+
+  private Iterator<Product> validated(MappingIterator<Product> products) {
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        try {
+          return products.hasNextValue();
+        } catch (JsonProcessingException e) {
+          throw invalidLine(products, e.getOriginalMessage());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+
+      @Override
+      public Product next() {
+        Product product;
+        try {
+          product = products.nextValue();
+        } catch (JsonProcessingException e) {
+          throw invalidLine(products, e.getOriginalMessage());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        if (product.id != null) {
+          throw invalidLine(products, "Id was invalidly set on request.");
+        }
+        return product;
+      }
+    };
+  }
+
+  private static ApiException invalidLine(MappingIterator<Product> products, String reason) {
+    // nothing is imported: the exception rolls the whole transaction back
+    return ApiException.unprocessable(
+        "Invalid product on line " + products.getCurrentLocation().getLineNr() + ": " + reason);
+  }
+
+  private void writeAll(OutputStream output) {
+    try (var products = productRepository.streamAllById()) {
+      var writer = objectMapper.writerFor(Product.class);
+      for (var iterator = products.iterator(); iterator.hasNext(); ) {
+        output.write(writer.writeValueAsBytes(iterator.next()));
+        output.write(NEWLINE);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
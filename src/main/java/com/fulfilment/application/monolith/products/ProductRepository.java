@@ -1,7 +1,75 @@
 package com.fulfilment.application.monolith.products;
 
+import com.fulfilment.application.monolith.stock.ConditionalStockUpdate;
+import com.fulfilment.application.monolith.stock.StockAdjustment;
+import com.fulfilment.application.monolith.stock.StockLevel;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.transaction.Transactional;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 
 @ApplicationScoped
-public class ProductRepository implements PanacheRepository<Product> {}
+public class ProductRepository implements PanacheRepository<Product> {
+
+  // rows fetched per round trip while streaming, so the JDBC driver never buffers the whole result set
+  private static final int STREAM_FETCH_SIZE = 500;
+
+  private static final ConditionalStockUpdate.Target STOCK =
+      new ConditionalStockUpdate.Target(Product.class, "product", "stock", "t.id, t.stock", "Product");
+
+  @Inject ConditionalStockUpdate conditionalStockUpdate;
+
+  /** Adds the deltas to the stock of the products in one statement, all or none of them. */
+  @Transactional(Transactional.TxType.MANDATORY)
+  public List<StockLevel> adjustStock(Collection<StockAdjustment> adjustments) {
+    return conditionalStockUpdate.apply(STOCK, adjustments, row -> new StockLevel(row.getLong(1), row.getInt(2)));
+  }
+
+  /**
+   * Persists the products as they are pulled from {@code products}, sending the inserts in JDBC batches of {@code
+   * batchSize} and clearing the persistence context after each, so memory stays bounded whatever the count.
+   */
+  @Transactional(Transactional.TxType.MANDATORY)
+  public long persistInBatches(Iterator<Product> products, int batchSize) {
+    var session = getEntityManager().unwrap(Session.class);
+    session.setJdbcBatchSize(batchSize);
+    // imported rows are not read back, no point in filling the second-level cache with them
+    session.setCacheMode(CacheMode.IGNORE);
+    long persisted = 0;
+    while (products.hasNext()) {
+      session.persist(products.next());
+      if (++persisted % batchSize == 0) {
+        session.flush();
+        session.clear();
+      }
+    }
+    session.flush();
+    session.clear();
+    return persisted;
+  }
+
+  /** Every product ordered by id, read through a server-side cursor; the caller must close the stream. */
+  @Transactional(Transactional.TxType.MANDATORY)
+  public Stream<Product> streamAllById() {
+    return findAll(Sort.by("id"))
+        .withHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+        .withHint(HibernateHints.HINT_READ_ONLY, true)
+        .withHint(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS)
+        .stream()
+        .map(product -> {
+          // keep the persistence context empty, otherwise it grows with every row read
+          getEntityManager().detach(product);
+          return product;
+        });
+  }
+}
@@ -1,7 +1,10 @@
 package com.fulfilment.application.monolith.products;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fulfilment.application.monolith.caching.SerializedListCache;
+import com.fulfilment.application.monolith.errors.ApiException;
+import com.fulfilment.application.monolith.execution.BoundedByConnectionPool;
+import com.fulfilment.application.monolith.stock.StockAdjustment;
+import com.fulfilment.application.monolith.stock.StockLevel;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
@@ -13,26 +16,37 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
-import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
-import jakarta.ws.rs.ext.ExceptionMapper;
-import jakarta.ws.rs.ext.Provider;
+import java.io.InputStream;
 import java.util.List;
-import org.jboss.logging.Logger;
+import java.util.Map;
+import org.hibernate.jpa.HibernateHints;
 
 @Path("product")
+@BoundedByConnectionPool
 @ApplicationScoped
 @Produces("application/json")
 @Consumes("application/json")
 public class ProductResource {
 
   @Inject ProductRepository productRepository;
+  @Inject ProductNdjson productNdjson;
+  // GET /product, invalidated by every write below
+  @Inject SerializedListCache listCache;
 
-  private static final Logger LOGGER = Logger.getLogger(ProductResource.class.getName());
+  @GET
+  public Response get(@Context Request request) {
+    return listCache.get(request,
+        () -> productRepository.findAll(Sort.by("name")).withHint(HibernateHints.HINT_CACHEABLE, true).list());
+  }
 
   @GET
-  public List<Product> get() {
-    return productRepository.listAll(Sort.by("name"));
+  @Path("export")
+  @Produces(ProductNdjson.MEDIA_TYPE)
+  public Response export() {
+    return Response.ok(productNdjson.exportAll()).build();
   }
 
   @GET
@@ -40,7 +54,7 @@ public class ProductResource {
   public Product getSingle(Long id) {
     Product entity = productRepository.findById(id);
     if (entity == null) {
-      throw new WebApplicationException("Product with id of " + id + " does not exist.", 404);
+      throw ApiException.notFound("Product with id of " + id + " does not exist.");
     }
     return entity;
   }
@@ -49,25 +63,54 @@ public class ProductResource {
   @Transactional
   public Response create(Product product) {
     if (product.id != null) {
-      throw new WebApplicationException("Id was invalidly set on request.", 422);
+      throw ApiException.unprocessable("Id was invalidly set on request.");
     }
 
     productRepository.persist(product);
+    listCache.invalidate();
     return Response.ok(product).status(201).build();
   }
 
+  @POST
+  @Path("bulk")
+  @Consumes(ProductNdjson.MEDIA_TYPE)
+  public Map<String, Long> bulkCreate(InputStream products) {
+    long imported = productNdjson.importAll(products);
+    listCache.invalidate();
+    return Map.of("imported", imported);
+  }
+
+  @POST
+  @Path("{id}/stock/adjust")
+  @Transactional
+  public StockLevel adjustStock(Long id, StockAdjustment adjustment) {
+    if (adjustment == null) {
+      throw ApiException.unprocessable("Stock adjustment was not set on request.");
+    }
+    listCache.invalidate();
+    return productRepository.adjustStock(List.of(new StockAdjustment(id, adjustment.delta))).get(0);
+  }
+
+  @POST
+  @Path("stock/adjust")
+  @Transactional
+  public List<StockLevel> adjustStocks(List<StockAdjustment> adjustments) {
+    listCache.invalidate();
+    return productRepository.adjustStock(adjustments);
+  }
+
   @PUT
   @Path("{id}")
   @Transactional
   public Product update(Long id, Product product) {
     if (product.name == null) {
-      throw new WebApplicationException("Product Name was not set on request.", 422);
+      throw ApiException.unprocessable("Product Name was not set on request.");
     }
 
     Product entity = productRepository.findById(id);
 
     if (entity == null) {
-      throw new WebApplicationException("Product with id of " + id + " does not exist.", 404);
+      throw ApiException.notFound("Product with id of " + id + " does not exist.");
     }
 
     entity.name = product.name;
@@ -76,6 +119,7 @@ public class ProductResource {
     entity.stock = product.stock;
 
     productRepository.persist(entity);
+    listCache.invalidate();
 
     return entity;
   }
@@ -86,35 +130,10 @@ public class ProductResource {
   public Response delete(Long id) {
     Product entity = productRepository.findById(id);
     if (entity == null) {
-      throw new WebApplicationException("Product with id of " + id + " does not exist.", 404);
+      throw ApiException.notFound("Product with id of " + id + " does not exist.");
     }
     productRepository.delete(entity);
+    listCache.invalidate();
     return Response.status(204).build();
   }
-
-  @Provider
-  public static class ErrorMapper implements ExceptionMapper<Exception> {
-
-    @Inject ObjectMapper objectMapper;
-
-    @Override
-    public Response toResponse(Exception exception) {
-      LOGGER.error("Failed to handle request", exception);
-
-      int code = 500;
-      if (exception instanceof WebApplicationException) {
-        code = ((WebApplicationException) exception).getResponse().getStatus();
-      }
-
-      ObjectNode exceptionJson = objectMapper.createObjectNode();
-      exceptionJson.put("exceptionType", exception.getClass().getName());
-      exceptionJson.put("code", code);
-
-      if (exception.getMessage() != null) {
-        exceptionJson.put("error", exception.getMessage());
-      }
-
-      return Response.status(code).entity(exceptionJson).build();
-    }
-  }
 }
@@ -0,0 +1,169 @@
+package com.fulfilment.application.monolith.stock;
+
+import com.fulfilment.application.monolith.errors.ApiException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.transaction.Transactional;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.hibernate.Session;
+
+/**
+ * Applies stock adjustments with a single conditional {@code UPDATE}, so concurrent movements never lose each other
+ * and no entity is loaded. The stock column is changed in place only where it stays non-negative:
+ *
+ * <pre>UPDATE table SET stock = stock + d.delta FROM unnest(ids, deltas) d WHERE id = d.id AND stock + d.delta &gt;= 0</pre>
+ *
+ * <p>All the adjustments of a call go in one statement and one round trip, and lock their rows in id order, so two calls
+ * adjusting the same rows never deadlock. They are applied all or none: if a row is missing, would go below zero or
+ * beyond the integer range, the transaction is rolled back with a 404, a 409 or a 422.
+ */
+@ApplicationScoped
+public class ConditionalStockUpdate {
+
+  @FunctionalInterface
+  public interface RowMapper<T> {
+    T map(ResultSet row) throws SQLException;
+  }
+
+  /** What is adjusted: a table, its stock column, and what is read back from the rows that were changed. */
+  public static class Target {
+    final Class<?> entityClass;
+    final String table;
+    final String stockColumn;
+    final String returning;
+    final String label;
+
+    public Target(Class<?> entityClass, String table, String stockColumn, String returning, String label) {
+      this.entityClass = entityClass;
+      this.table = table;
+      this.stockColumn = stockColumn;
+      this.returning = returning;
+      this.label = label;
+    }
+  }
+
+  @Inject EntityManager entityManager;
+  @Inject TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+  /**
+   * Applies the adjustments, adding up the deltas of the same id, and returns the changed rows read back through
+   * {@code mapper}, one per distinct id. The first column read back must be the id.
+   */
+  @Transactional(Transactional.TxType.MANDATORY)
+  public <T> List<T> apply(Target target, Collection<StockAdjustment> adjustments, RowMapper<T> mapper) {
+    Map<Long, Integer> deltas = netDeltas(adjustments);
+    if (deltas.isEmpty()) {
+      return List.of();
+    }
+    Long[] ids = deltas.keySet().toArray(Long[]::new);
+    Integer[] values = deltas.values().toArray(Integer[]::new);
+    String sql = "UPDATE " + target.table + " t SET " + target.stockColumn + " = t." + target.stockColumn + " + d.delta"
+        + " FROM unnest(?::bigint[], ?::integer[]) AS d(id, delta)"
+        // in bigint, so that a stock going beyond the integer range is rejected rather than failing the statement
+        + " WHERE t.id = d.id AND t." + target.stockColumn + "::bigint + d.delta BETWEEN 0 AND " + Integer.MAX_VALUE
+        + " RETURNING " + target.returning;
+
+    var session = entityManager.unwrap(Session.class);
+    // the statement bypasses Hibernate, pending changes must reach the database first
+    session.flush();
+    var rejected = new LinkedHashSet<>(deltas.keySet());
+    List<T> changed = session.doReturningWork(connection -> {
+      try (var statement = connection.prepareStatement(sql)) {
+        statement.setArray(1, connection.createArrayOf("bigint", ids));
+        statement.setArray(2, connection.createArrayOf("integer", values));
+        try (var rows = statement.executeQuery()) {
+          var result = new ArrayList<T>(ids.length);
+          while (rows.next()) {
+            rejected.remove(rows.getLong(1));
+            result.add(mapper.map(rows));
+          }
+          return result;
+        }
+      }
+    });
+    evictOnCompletion(target.entityClass, deltas.keySet());
+    if (!rejected.isEmpty()) {
+      throw rejection(session, target, deltas, rejected);
+    }
+    return changed;
+  }
+
+  // by id: the order the update locks the rows in
+  private static Map<Long, Integer> netDeltas(Collection<StockAdjustment> adjustments) {
+    if (adjustments == null) {
+      throw ApiException.unprocessable("Stock adjustments were not set on request.");
+    }
+    var deltas = new TreeMap<Long, Integer>();
+    for (StockAdjustment adjustment : adjustments) {
+      if (adjustment == null || adjustment.id == null) {
+        throw ApiException.unprocessable("Id was not set on stock adjustment.");
+      }
+      try {
+        deltas.merge(adjustment.id, adjustment.delta, Math::addExact);
+      } catch (ArithmeticException e) {
+        throw ApiException.unprocessable("Stock adjustments of id " + adjustment.id + " add up beyond the integer range.");
+      }
+    }
+    return deltas;
+  }
+
+  // the second-level cache still holds the previous stock: evicted now, and again once the new one is committed
+  private void evictOnCompletion(Class<?> entityClass, Set<Long> ids) {
+    var cache = entityManager.getEntityManagerFactory().getCache();
+    ids.forEach(id -> cache.evict(entityClass, id));
+    transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+      @Override
+      public void beforeCompletion() {
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        ids.forEach(id -> cache.evict(entityClass, id));
+      }
+    });
+  }
+
+  // off the fast path: tells a missing row from one without enough stock or with too much, to pick the status
+  private static ApiException rejection(Session session, Target target, Map<Long, Integer> deltas, Set<Long> rejected) {
+    Long[] ids = rejected.toArray(Long[]::new);
+    Map<Long, Integer> stocks = session.doReturningWork(connection -> {
+      try (var statement = connection.prepareStatement(
+          "SELECT id, " + target.stockColumn + " FROM " + target.table + " WHERE id = ANY(?)")) {
+        statement.setArray(1, connection.createArrayOf("bigint", ids));
+        try (var rows = statement.executeQuery()) {
+          var result = new HashMap<Long, Integer>();
+          while (rows.next()) {
+            result.put(rows.getLong(1), rows.getInt(2));
+          }
+          return result;
+        }
+      }
+    });
+    for (Long id : ids) {
+      if (!stocks.containsKey(id)) {
+        return ApiException.notFound(target.label + " with id of " + id + " does not exist.");
+      }
+    }
+    for (Long id : ids) {
+      if ((long) stocks.get(id) + deltas.get(id) > Integer.MAX_VALUE) {
+        return ApiException.unprocessable("Stock of " + target.label.toLowerCase() + " with id of " + id
+            + " would go beyond the integer range.");
+      }
+    }
+    return ApiException.conflict("Not enough stock in " + target.label.toLowerCase() + " with id of "
+        + rejected.stream().map(String::valueOf).collect(Collectors.joining(", ")) + ".");
+  }
+}
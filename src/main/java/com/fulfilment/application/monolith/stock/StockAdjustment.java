@@ -0,0 +1,17 @@
+package com.fulfilment.application.monolith.stock;
+
+/** A change of the stock of one product or store: positive to add items, negative to take them out. */
+public class StockAdjustment {
+
+  // ignored when the id is already in the path
+  public Long id;
+
+  public int delta;
+
+  public StockAdjustment() {}
+
+  public StockAdjustment(Long id, int delta) {
+    this.id = id;
+    this.delta = delta;
+  }
+}
@@ -0,0 +1,16 @@
+package com.fulfilment.application.monolith.stock;
+
+/** The stock of a product or store right after an adjustment was applied to it. */
+public class StockLevel {
+
+  public Long id;
+
+  public int stock;
+
+  public StockLevel() {}
+
+  public StockLevel(Long id, int stock) {
+    this.id = id;
+    this.stock = stock;
+  }
+}
@@ -1,22 +1,95 @@
 package com.fulfilment.application.monolith.stores;
 
+import io.quarkus.runtime.configuration.MemorySize;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
 @ApplicationScoped
 public class LegacyStoreManagerGateway {
 
+  public enum Mode {
+    // one temporary file written, read back and deleted per change
+    TEMP_FILE,
+    // changes appended to a StoreChangeJournal
+    JOURNAL
+  }
+
+  private static final Logger LOGGER = Logger.getLogger(LegacyStoreManagerGateway.class.getName());
+
+  @ConfigProperty(name = "legacy.store-manager.mode", defaultValue = "temp-file")
+  Mode mode;
+
+  @ConfigProperty(name = "legacy.store-manager.journal.directory", defaultValue = "legacy-store-journal")
+  Path journalDirectory;
+
+  @ConfigProperty(name = "legacy.store-manager.journal.segment-size", defaultValue = "64M")
+  MemorySize journalSegmentSize;
+
+  @ConfigProperty(name = "legacy.store-manager.journal.fsync", defaultValue = "batch")
+  StoreChangeJournal.FsyncPolicy journalFsyncPolicy;
+
+  private StoreChangeJournal journal;
+
+  @PostConstruct
+  void openJournal() throws IOException {
+    if (mode == Mode.JOURNAL) {
+      journal = StoreChangeJournal.open(journalDirectory, journalSegmentSize.asLongValue(), journalFsyncPolicy);
+    }
+  }
+
+  @PreDestroy
+  void closeJournal() throws IOException {
+    if (journal != null) {
+      journal.close();
+    }
+  }
+
   public void createStoreOnLegacySystem(Store store) {
+    if (journal != null) {
+      appendToJournal(StoreOutboxEvent.Type.CREATED, store);
+      return;
+    }
     // just to emulate as this would send this to a legacy system, let's write a temp file with the
     writeToFile(store);
   }
 
   public void updateStoreOnLegacySystem(Store store) {
+    if (journal != null) {
+      appendToJournal(StoreOutboxEvent.Type.UPDATED, store);
+      return;
+    }
     // just to emulate as this would send this to a legacy system, let's write a temp file with the
     writeToFile(store);
   }
 
+  /** Makes the changes sent so far durable; called once per batch so that they share a single fsync. */
+  public void flush() {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.sync();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot sync the legacy store journal", e);
+    }
+  }
+
+  private void appendToJournal(StoreOutboxEvent.Type type, Store store) {
+    try {
+      journal.append(new StoreChangeJournal.Entry(type, store.id, store.name, store.quantityProductsInStock));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot append to the legacy store journal", e);
+    }
+  }
+
   private void writeToFile(Store store) {
     try {
       // Step 1: Create a temporary file
@@ -24,7 +97,7 @@ public class LegacyStoreManagerGateway {
 
       tempFile = Files.createTempFile(store.name, ".txt");
 
-      System.out.println("Temporary file created at: " + tempFile.toString());
+      LOGGER.debugf("Temporary file created at: %s", tempFile);
 
       // Step 2: Write data to the temporary file
       String content =
@@ -33,19 +106,20 @@ public class LegacyStoreManagerGateway {
               + " ] [ items on stock ="
               + store.quantityProductsInStock
               + "]";
-      Files.write(tempFile, content.getBytes());
-      System.out.println("Data written to temporary file.");
+      Files.write(tempFile, content.getBytes(StandardCharsets.UTF_8));
+      LOGGER.debug("Data written to temporary file.");
 
       // Step 3: Optionally, read the data back to verify
-      String readContent = new String(Files.readAllBytes(tempFile));
-      System.out.println("Data read from temporary file: " + readContent);
+      String readContent = new String(Files.readAllBytes(tempFile), StandardCharsets.UTF_8);
+      LOGGER.debugf("Data read from temporary file: %s", readContent);
 
       // Step 4: Delete the temporary file when done
       Files.delete(tempFile);
-      System.out.println("Temporary file deleted.");
+      LOGGER.debug("Temporary file deleted.");
 
-    } catch (Exception e) {
-      e.printStackTrace();
+    } catch (IOException e) {
+      // surfaced so that StoreOutboxDispatcher retries the change
+      throw new UncheckedIOException("Failed to write the store to the legacy system", e);
     }
   }
 }
@@ -0,0 +1,258 @@
+package com.fulfilment.application.monolith.stores;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the store changes sent to the legacy store manager.
+ *
+ * <p>Records are appended through a {@link FileChannel} to numbered segment files that are rotated once they
+ * reach the configured size. Every record is framed as {@code [payload length][crc32][payload]}, so a record torn
+ * by a crash is detected: the reader stops there and reopening the journal cuts it off.
+ *
+ * <p>With {@link FsyncPolicy#WRITE} an append returns once the record is on disk, but concurrent writers share
+ * the same {@code force}: whoever syncs covers every record appended so far (group commit).
+ */
+public class StoreChangeJournal implements Closeable {
+
+  public enum FsyncPolicy {
+    // every append is durable when it returns
+    WRITE,
+    // appends are made durable together by sync(), called at the end of a batch
+    BATCH,
+    // left to the operating system
+    NONE
+  }
+
+  public static class Entry {
+    public final StoreOutboxEvent.Type type;
+    public final long storeId;
+    public final String name;
+    public final int quantityProductsInStock;
+
+    public Entry(StoreOutboxEvent.Type type, long storeId, String name, int quantityProductsInStock) {
+      this.type = type;
+      this.storeId = storeId;
+      this.name = name;
+      this.quantityProductsInStock = quantityProductsInStock;
+    }
+  }
+
+  private static final String SEGMENT_PREFIX = "store-changes-";
+  private static final String SEGMENT_SUFFIX = ".journal";
+  private static final int HEADER_BYTES = Integer.BYTES * 2;
+  // type, store id and quantity, before the name
+  private static final int FIXED_PAYLOAD_BYTES = Byte.BYTES + Long.BYTES + Integer.BYTES;
+  private static final StoreOutboxEvent.Type[] TYPES = StoreOutboxEvent.Type.values();
+
+  private final Path directory;
+  private final long maxSegmentBytes;
+  private final FsyncPolicy fsyncPolicy;
+
+  private final Object writeLock = new Object();
+  private final Object syncLock = new Object();
+
+  // guarded by writeLock
+  private FileChannel channel;
+  private int segment;
+  private long appended;
+  private ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+
+  // guarded by syncLock
+  private long synced;
+
+  private StoreChangeJournal(Path directory, long maxSegmentBytes, FsyncPolicy fsyncPolicy) {
+    this.directory = directory;
+    this.maxSegmentBytes = maxSegmentBytes;
+    this.fsyncPolicy = fsyncPolicy;
+  }
+
+  /** Opens the journal in {@code directory}, appending to its last segment after cutting off any torn record. */
+  public static StoreChangeJournal open(Path directory, long maxSegmentBytes, FsyncPolicy fsyncPolicy) throws IOException {
+    Files.createDirectories(directory);
+    var journal = new StoreChangeJournal(directory, maxSegmentBytes, fsyncPolicy);
+    var segments = segments(directory);
+    journal.segment = segments.isEmpty() ? 0 : segmentNumber(segments.get(segments.size() - 1));
+    journal.channel = FileChannel.open(journal.segmentPath(journal.segment),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long validLength = readSegment(journal.channel, entry -> {});
+    journal.channel.truncate(validLength);
+    journal.channel.position(validLength);
+    return journal;
+  }
+
+  public void append(Entry entry) throws IOException {
+    long sequence;
+    synchronized (writeLock) {
+      encode(entry);
+      if (channel.position() > 0 && channel.position() + buffer.remaining() > maxSegmentBytes) {
+        rotate();
+      }
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      sequence = ++appended;
+    }
+    if (fsyncPolicy == FsyncPolicy.WRITE) {
+      awaitDurable(sequence);
+    }
+  }
+
+  /** Makes every record appended so far durable, unless the policy leaves it to the operating system. */
+  public void sync() throws IOException {
+    if (fsyncPolicy == FsyncPolicy.NONE) {
+      return;
+    }
+    long sequence;
+    synchronized (writeLock) {
+      sequence = appended;
+    }
+    awaitDurable(sequence);
+  }
+
+  /** Reads every valid record of the journal in {@code directory}, oldest first. */
+  public static void replay(Path directory, Consumer<Entry> consumer) throws IOException {
+    for (Path segment : segments(directory)) {
+      try (var segmentChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+        readSegment(segmentChannel, consumer);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (writeLock) {
+      if (fsyncPolicy != FsyncPolicy.NONE) {
+        channel.force(false);
+      }
+      channel.close();
+    }
+  }
+
+  private void awaitDurable(long sequence) throws IOException {
+    synchronized (syncLock) {
+      if (synced >= sequence) {
+        // a force issued for another writer already covered this record
+        return;
+      }
+      long target;
+      FileChannel current;
+      synchronized (writeLock) {
+        target = appended;
+        current = channel;
+      }
+      try {
+        current.force(false);
+      } catch (ClosedChannelException e) {
+        // rotated meanwhile: rotation forces a segment before closing it
+      }
+      synced = target;
+    }
+  }
+
+  private void rotate() throws IOException {
+    if (fsyncPolicy != FsyncPolicy.NONE) {
+      channel.force(false);
+    }
+    channel.close();
+    segment++;
+    channel = FileChannel.open(segmentPath(segment),
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+  }
+
+  private void encode(Entry entry) {
+    byte[] name = entry.name == null ? new byte[0] : entry.name.getBytes(StandardCharsets.UTF_8);
+    int payloadLength = FIXED_PAYLOAD_BYTES + name.length;
+    if (buffer.capacity() < HEADER_BYTES + payloadLength) {
+      buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(HEADER_BYTES + payloadLength) << 1);
+    }
+    buffer.clear();
+    buffer.position(HEADER_BYTES);
+    buffer.put((byte) entry.type.ordinal()).putLong(entry.storeId).putInt(entry.quantityProductsInStock).put(name);
+    buffer.flip();
+
+    var crc = new CRC32();
+    crc.update(buffer.duplicate().position(HEADER_BYTES));
+    buffer.putInt(0, payloadLength).putInt(Integer.BYTES, (int) crc.getValue());
+  }
+
+  // returns the length of the valid prefix of the segment
+  private static long readSegment(FileChannel segmentChannel, Consumer<Entry> consumer) throws IOException {
+    var header = ByteBuffer.allocate(HEADER_BYTES);
+    long position = 0;
+    long size = segmentChannel.size();
+    while (position + HEADER_BYTES <= size) {
+      header.clear();
+      readFully(segmentChannel, header, position);
+      int payloadLength = header.getInt(0);
+      int checksum = header.getInt(Integer.BYTES);
+      if (payloadLength < FIXED_PAYLOAD_BYTES || position + HEADER_BYTES + payloadLength > size) {
+        break;
+      }
+      var payload = ByteBuffer.allocate(payloadLength);
+      readFully(segmentChannel, payload, position + HEADER_BYTES);
+      var crc = new CRC32();
+      crc.update(payload.array());
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      consumer.accept(decode(payload));
+      position += HEADER_BYTES + payloadLength;
+    }
+    return position;
+  }
+
+  private static void readFully(FileChannel segmentChannel, ByteBuffer target, long position) throws IOException {
+    while (target.hasRemaining()) {
+      if (segmentChannel.read(target, position + target.position()) < 0) {
+        break;
+      }
+    }
+    target.flip();
+  }
+
+  private static Entry decode(ByteBuffer payload) {
+    var type = TYPES[payload.get()];
+    long storeId = payload.getLong();
+    int quantityProductsInStock = payload.getInt();
+    var name = new String(payload.array(), payload.position(), payload.remaining(), StandardCharsets.UTF_8);
+    return new Entry(type, storeId, name, quantityProductsInStock);
+  }
+
+  private Path segmentPath(int number) {
+    return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+  }
+
+  private static List<Path> segments(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      var segments = new ArrayList<Path>();
+      files.filter(file -> {
+            var name = file.getFileName().toString();
+            return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+          })
+          .sorted()
+          .forEach(segments::add);
+      return segments;
+    }
+  }
+
+  private static int segmentNumber(Path segment) {
+    var name = segment.getFileName().toString();
+    return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+}
@@ -0,0 +1,115 @@
+package com.fulfilment.application.monolith.stores;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Drains the store outbox to the legacy store manager, off the request thread. Events are taken oldest first
+ * and the changes of a store are delivered in the order they were committed: when one of them fails, the
+ * following ones of the same store wait for its retry. A batch is claimed for a lease, so that the dispatchers of
+ * several instances never send the same events.
+ */
+@ApplicationScoped
+public class StoreOutboxDispatcher {
+
+  private static final Logger LOGGER = Logger.getLogger(StoreOutboxDispatcher.class.getName());
+
+  // the retry delay doubles at every attempt up to this many times
+  private static final int MAX_BACKOFF_DOUBLINGS = 10;
+
+  private final StoreOutboxRepository storeOutboxRepository;
+  private final LegacyStoreManagerGateway legacyStoreManagerGateway;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration retryBackoff;
+  private final Duration claimLease;
+
+  public StoreOutboxDispatcher(
+      StoreOutboxRepository storeOutboxRepository,
+      LegacyStoreManagerGateway legacyStoreManagerGateway,
+      @ConfigProperty(name = "store.outbox.batch-size", defaultValue = "100") int batchSize,
+      @ConfigProperty(name = "store.outbox.max-attempts", defaultValue = "10") int maxAttempts,
+      @ConfigProperty(name = "store.outbox.retry-backoff", defaultValue = "1S") Duration retryBackoff,
+      @ConfigProperty(name = "store.outbox.claim-lease", defaultValue = "5M") Duration claimLease) {
+    this.storeOutboxRepository = storeOutboxRepository;
+    this.legacyStoreManagerGateway = legacyStoreManagerGateway;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.retryBackoff = retryBackoff;
+    this.claimLease = claimLease;
+  }
+
+  @Scheduled(every = "${store.outbox.poll-interval:1s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void scheduledDispatch() {
+    int attempted;
+    do {
+      attempted = dispatch();
+      // a whole batch went through: drain the next one now, so a burst does not wait for the next tick
+    } while (attempted == batchSize);
+  }
+
+  /** Sends one batch of pending events and returns how many of them were attempted. */
+  public int dispatch() {
+    List<StoreOutboxEvent> events = storeOutboxRepository.claimNextBatch(batchSize, claimLease);
+    if (events.isEmpty()) {
+      return 0;
+    }
+    var now = LocalDateTime.now();
+    var heldBackStores = new HashSet<Long>();
+    var delivered = new ArrayList<Long>();
+    // failed, or not attempted: given back to the outbox
+    var pending = new ArrayList<StoreOutboxEvent>();
+    int attempted = 0;
+    for (StoreOutboxEvent event : events) {
+      if (heldBackStores.contains(event.storeId)) {
+        pending.add(event);
+        continue;
+      }
+      if (event.nextAttemptAt != null && event.nextAttemptAt.isAfter(now)) {
+        heldBackStores.add(event.storeId);
+        pending.add(event);
+        continue;
+      }
+      attempted++;
+      try {
+        deliver(event);
+        delivered.add(event.id);
+      } catch (RuntimeException e) {
+        event.attempts++;
+        if (event.attempts >= maxAttempts) {
+          event.failedAt = now;
+          LOGGER.errorf(e, "Giving up sending %s of store %d to the legacy system after %d attempts", event.type, event.storeId, event.attempts);
+        } else {
+          event.nextAttemptAt = now.plus(backoff(event.attempts));
+          heldBackStores.add(event.storeId);
+          LOGGER.warnf("Failed to send %s of store %d to the legacy system, retrying at %s", event.type, event.storeId, event.nextAttemptAt);
+        }
+        pending.add(event);
+      }
+    }
+    if (!delivered.isEmpty()) {
+      // one fsync for the whole batch when the gateway journals; on failure nothing is removed and all is resent
+      legacyStoreManagerGateway.flush();
+    }
+    storeOutboxRepository.complete(delivered, pending);
+    return attempted;
+  }
+
+  private void deliver(StoreOutboxEvent event) {
+    switch (event.type) {
+      case CREATED -> legacyStoreManagerGateway.createStoreOnLegacySystem(event.toStore());
+      case UPDATED -> legacyStoreManagerGateway.updateStoreOnLegacySystem(event.toStore());
+    }
+  }
+
+  private Duration backoff(int attempts) {
+    return retryBackoff.multipliedBy(1L << Math.min(attempts - 1, MAX_BACKOFF_DOUBLINGS));
+  }
+}
@@ -0,0 +1,69 @@
+package com.fulfilment.application.monolith.stores;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A store change waiting to be sent to the legacy store manager. It is written in the same transaction as the
+ * {@link Store} change and removed once {@link StoreOutboxDispatcher} has delivered it.
+ */
+@Entity
+@Table(name = "store_outbox", indexes = {
+    @Index(name = "store_outbox_pending_idx", columnList = "failedAt, id"),
+    @Index(name = "store_outbox_store_idx", columnList = "storeId, id")})
+public class StoreOutboxEvent {
+
+  public enum Type {
+    CREATED,
+    UPDATED
+  }
+
+  @Id @GeneratedValue public Long id;
+
+  @Column(nullable = false)
+  public Long storeId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 10)
+  public Type type;
+
+  // state of the store when the change was committed
+  @Column(length = 40)
+  public String name;
+
+  public int quantityProductsInStock;
+
+  public LocalDateTime createdAt;
+
+  public int attempts;
+
+  // not delivered again before this instant: after a failed attempt, or while claimed by a dispatcher
+  public LocalDateTime nextAttemptAt;
+
+  // set when the delivery has been given up after too many attempts
+  public LocalDateTime failedAt;
+
+  public StoreOutboxEvent() {}
+
+  public StoreOutboxEvent(Type type, Store store) {
+    this.type = type;
+    this.storeId = store.id;
+    this.name = store.name;
+    this.quantityProductsInStock = store.quantityProductsInStock;
+    this.createdAt = LocalDateTime.now();
+  }
+
+  Store toStore() {
+    var store = new Store(name);
+    store.id = storeId;
+    store.quantityProductsInStock = quantityProductsInStock;
+    return store;
+  }
+}
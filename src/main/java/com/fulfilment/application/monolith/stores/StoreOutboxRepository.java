@@ -0,0 +1,64 @@
+package com.fulfilment.application.monolith.stores;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Parameters;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ApplicationScoped
+public class StoreOutboxRepository implements PanacheRepository<StoreOutboxEvent> {
+
+  // advisory lock key serialising the claims of the dispatchers, apart from other advisory lock users
+  static final int CLAIM_LOCK_KEY = 0x5354424f;
+
+  // pending events due for delivery, unless an earlier change of the same store waits for its retry or is claimed
+  private static final String DUE = "FROM StoreOutboxEvent e WHERE e.failedAt IS NULL"
+      + " AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now)"
+      + " AND NOT EXISTS (FROM StoreOutboxEvent earlier WHERE earlier.storeId = e.storeId AND earlier.id < e.id"
+      + " AND earlier.failedAt IS NULL AND earlier.nextAttemptAt > :now)"
+      + " ORDER BY e.id";
+
+  // joins the transaction changing the store, so the event is committed or rolled back with it
+  @Transactional(Transactional.TxType.MANDATORY)
+  public void enqueue(StoreOutboxEvent.Type type, Store store) {
+    persist(new StoreOutboxEvent(type, store));
+  }
+
+  /**
+   * The oldest events due for delivery, detached so they can be delivered outside of the transaction. They are claimed
+   * for {@code lease}: not due again, for any dispatcher, until {@link #complete} gives them back or the lease runs out
+   * after a crash. Claims are serialised across instances, so a claim sees the ones committed before it and the later
+   * changes of a store being sent elsewhere wait for them.
+   */
+  @Transactional
+  public List<StoreOutboxEvent> claimNextBatch(int size, Duration lease) {
+    // released by PostgreSQL on commit, once the claimed events have their lease
+    getEntityManager().createNativeQuery("SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(?1)) AS l")
+        .setParameter(1, CLAIM_LOCK_KEY)
+        .getSingleResult();
+    var now = LocalDateTime.now();
+    var events = find(DUE, Parameters.with("now", now)).page(0, size).list();
+    if (events.isEmpty()) {
+      return events;
+    }
+    // detached first: the events keep the next attempt they had, which complete writes back if they are not sent
+    events.forEach(getEntityManager()::detach);
+    update("nextAttemptAt = ?1 WHERE id IN ?2", now.plus(lease), events.stream().map(event -> event.id).toList());
+    return events;
+  }
+
+  // removes the delivered events and gives back the others, with the attempts and next attempt the dispatcher left them
+  @Transactional
+  public void complete(List<Long> deliveredIds, List<StoreOutboxEvent> pending) {
+    if (!deliveredIds.isEmpty()) {
+      delete("id IN ?1", deliveredIds);
+    }
+    for (StoreOutboxEvent event : pending) {
+      update("attempts = ?1, nextAttemptAt = ?2, failedAt = ?3 WHERE id = ?4",
+          event.attempts, event.nextAttemptAt, event.failedAt, event.id);
+    }
+  }
+}
@@ -1,7 +1,11 @@
 package com.fulfilment.application.monolith.stores;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fulfilment.application.monolith.caching.SerializedListCache;
+import com.fulfilment.application.monolith.errors.ApiException;
+import com.fulfilment.application.monolith.execution.BoundedByConnectionPool;
+import com.fulfilment.application.monolith.stock.ConditionalStockUpdate;
+import com.fulfilment.application.monolith.stock.StockAdjustment;
+import com.fulfilment.application.monolith.stock.StockLevel;
 import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -15,29 +19,33 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
-import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
 import jakarta.ws.rs.core.UriInfo;
-import jakarta.ws.rs.ext.ExceptionMapper;
-import jakarta.ws.rs.ext.Provider;
 import java.util.List;
-import org.jboss.logging.Logger;
+import org.hibernate.jpa.HibernateHints;
 
 @Path("store")
+@BoundedByConnectionPool
 @ApplicationScoped
 @Produces("application/json")
 @Consumes("application/json")
 public class StoreResource {
 
-  @Inject LegacyStoreManagerGateway legacyStoreManagerGateway;
+  private static final ConditionalStockUpdate.Target STOCK = new ConditionalStockUpdate.Target(
+      Store.class, "store", "quantityProductsInStock", "t.id, t.quantityProductsInStock, t.name", "Store");
 
-  private static final Logger LOGGER = Logger.getLogger(StoreResource.class.getName());
+  @Inject StoreOutboxRepository storeOutboxRepository;
+  @Inject ConditionalStockUpdate conditionalStockUpdate;
+  // GET /store, invalidated by every write below
+  @Inject SerializedListCache listCache;
 
   @GET
-  public List<Store> get() {
-    return Store.listAll(Sort.by("name"));
+  public Response get(@Context Request request) {
+    return listCache.get(request,
+        () -> Store.<Store>findAll(Sort.by("name")).withHint(HibernateHints.HINT_CACHEABLE, true).list());
   }
 
   @GET
@@ -45,7 +53,7 @@ public class StoreResource {
   public Store getSingle(Long id) {
     Store entity = Store.findById(id);
     if (entity == null) {
-      throw new WebApplicationException("Store with id of " + id + " does not exist.", 404);
+      throw ApiException.notFound("Store with id of " + id + " does not exist.");
     }
     return entity;
   }
@@ -53,12 +61,14 @@ public class StoreResource {
   @POST
   public Response create(Store store, @Context UriInfo uriInfo) {
     if (store.id != null) {
-      throw new WebApplicationException("Id was invalidly set on request.", 422);
+      throw ApiException.unprocessable("Id was invalidly set on request.");
     }
     QuarkusTransaction.requiringNew().run(() -> {
       store.persistAndFlush();  // persist and flush already commit. I shrink the transaction scope
+      // the legacy system is notified by StoreOutboxDispatcher once this transaction has committed
+      storeOutboxRepository.enqueue(StoreOutboxEvent.Type.CREATED, store);
     });
-    legacyStoreManagerGateway.createStoreOnLegacySystem(store);
+    listCache.invalidate();
 
     UriBuilder builder = uriInfo.getAbsolutePathBuilder().path(Long.toString(store.id));
     return Response.created(builder.build()).build();
@@ -68,22 +78,22 @@ public class StoreResource {
   @Path("{id}")
   public Store update(Long id, Store updatedStore) {
     if (updatedStore.name == null) {
-      throw new WebApplicationException("Store Name was not set on request.", 422);
+      throw ApiException.unprocessable("Store Name was not set on request.");
     }
     Store entity = QuarkusTransaction.requiringNew().call (() -> {
       Store store = Store.findById(id);
 
       if (store == null) {
-        throw new WebApplicationException("Store with id of " + id + " does not exist.", 404);
+        throw ApiException.notFound("Store with id of " + id + " does not exist.");
       }
 
       store.name = updatedStore.name;
       store.quantityProductsInStock = updatedStore.quantityProductsInStock;
       store.persistAndFlush();
+      storeOutboxRepository.enqueue(StoreOutboxEvent.Type.UPDATED, store);
       return store;
     });
-
-    legacyStoreManagerGateway.updateStoreOnLegacySystem(updatedStore);
+    listCache.invalidate();
 
     return entity;
   }
@@ -100,7 +110,7 @@ public class StoreResource {
       Store store = Store.findById(id);
 
       if (store == null) {
-        throw new WebApplicationException("Store with id of " + id + " does not exist.", 404);
+        throw ApiException.notFound("Store with id of " + id + " does not exist.");
       }
 
       if (updatedStore.name != null) { //PATCH can partially change an object
@@ -110,48 +120,50 @@ public class StoreResource {
       if (updatedStore.quantityProductsInStock != 0) { //PATCH can partially change an object
         store.quantityProductsInStock = updatedStore.quantityProductsInStock;
       }
+      storeOutboxRepository.enqueue(StoreOutboxEvent.Type.UPDATED, store);
       return store;
     });
-    legacyStoreManagerGateway.updateStoreOnLegacySystem(updatedStore);
+    listCache.invalidate();
 
     return entity;
   }
 
+  @POST
+  @Path("{id}/stock/adjust")
+  @Transactional
+  public StockLevel adjustStock(Long id, StockAdjustment adjustment) {
+    if (adjustment == null) {
+      throw ApiException.unprocessable("Stock adjustment was not set on request.");
+    }
+    return adjustStocks(List.of(new StockAdjustment(id, adjustment.delta))).get(0);
+  }
+
+  @POST
+  @Path("stock/adjust")
+  @Transactional
+  public List<StockLevel> adjustStocks(List<StockAdjustment> adjustments) {
+    List<Store> stores = conditionalStockUpdate.apply(STOCK, adjustments, row -> {
+      var store = new Store(row.getString(3));
+      store.id = row.getLong(1);
+      store.quantityProductsInStock = row.getInt(2);
+      return store;
+    });
+    // the legacy system gets the state read back by the update, the stores themselves are never loaded
+    stores.forEach(store -> storeOutboxRepository.enqueue(StoreOutboxEvent.Type.UPDATED, store));
+    listCache.invalidate();
+    return stores.stream().map(store -> new StockLevel(store.id, store.quantityProductsInStock)).toList();
+  }
+
   @DELETE
   @Path("{id}")
   @Transactional
   public Response delete(Long id) {
     Store entity = Store.findById(id);
     if (entity == null) {
-      throw new WebApplicationException("Store with id of " + id + " does not exist.", 404);
+      throw ApiException.notFound("Store with id of " + id + " does not exist.");
     }
     entity.delete();
+    listCache.invalidate();
     return Response.status(204).build();
   }
-
-  @Provider
-  public static class ErrorMapper implements ExceptionMapper<Exception> {
-
-    @Inject ObjectMapper objectMapper;
-
-    @Override
-    public Response toResponse(Exception exception) {
-      LOGGER.error("Failed to handle request", exception);
-
-      int code = 500;
-      if (exception instanceof WebApplicationException) {
-        code = ((WebApplicationException) exception).getResponse().getStatus();
-      }
-
-      ObjectNode exceptionJson = objectMapper.createObjectNode();
-      exceptionJson.put("exceptionType", exception.getClass().getName());
-      exceptionJson.put("code", code);
-
-      if (exception.getMessage() != null) {
-        exceptionJson.put("error", exception.getMessage());
-      }
-
-      return Response.status(code).entity(exceptionJson).build();
-    }
-  }
 }
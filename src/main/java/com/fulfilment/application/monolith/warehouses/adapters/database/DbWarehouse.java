@@ -6,8 +6,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 
+// every lookup filters the active rows (archivedAt IS NULL), which are covered by the partial indexes of
+// warehouse-indexes.sql: JPA cannot declare an index with a WHERE clause. Hibernate only runs that script when it
+// generates the schema, so wherever the schema is managed otherwise it must be applied there, or a second active
+// warehouse with the same business unit code is no longer rejected by the database
 @Entity
 @Table(name = "warehouse")
 @Cacheable
@@ -27,6 +32,9 @@ public class DbWarehouse {
 
   public LocalDateTime archivedAt;
 
+  // bumped by every change of the row, so that a writer holding an older copy is detected
+  @Version public Long version;
+
   public DbWarehouse() {}
 
   public Warehouse toWarehouse() {
@@ -37,6 +45,7 @@ public class DbWarehouse {
     warehouse.stock = this.stock;
     warehouse.createdAt = this.createdAt;
     warehouse.archivedAt = this.archivedAt;
+    warehouse.version = this.version;
     return warehouse;
   }
 }
@@ -0,0 +1,137 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.ReactiveWarehouseStore;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlClient;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * {@link ReactiveWarehouseStore} on the reactive PostgreSQL client, sharing the {@code warehouse} table, its sequence
+ * and the location advisory locks with {@link WarehouseRepository} and {@link StripedLocationLock}.
+ *
+ * <p>Writes made here bypass the Hibernate second-level cache. Rows are only ever changed by archiving them, and
+ * every Hibernate lookup filters the active rows in SQL, so a cached copy is never mistaken for an active row.
+ */
+@ApplicationScoped
+public class ReactiveWarehouseRepository implements ReactiveWarehouseStore {
+
+  private static final String COLUMNS = "businessUnitCode, location, capacity, stock, createdAt, archivedAt, version";
+
+  private final PgPool pool;
+  // the pool, or the connection of the transaction this store was handed to
+  private final SqlClient client;
+
+  @Inject
+  public ReactiveWarehouseRepository(PgPool pool) {
+    this(pool, pool);
+  }
+
+  private ReactiveWarehouseRepository(PgPool pool, SqlClient client) {
+    this.pool = pool;
+    this.client = client;
+  }
+
+  @Override
+  public <T> Uni<T> withTransaction(Function<ReactiveWarehouseStore, Uni<T>> work) {
+    if (client != pool) {
+      return work.apply(this);
+    }
+    return pool.withTransaction(connection -> work.apply(new ReactiveWarehouseRepository(pool, connection)));
+  }
+
+  @Override
+  public Uni<List<Warehouse>> getAllAfter(String buCode, int limit) {
+    var rows = buCode == null
+        ? client.preparedQuery("SELECT " + COLUMNS + " FROM warehouse WHERE archivedAt IS NULL ORDER BY businessUnitCode LIMIT $1")
+            .execute(Tuple.of(limit))
+        : client.preparedQuery("SELECT " + COLUMNS + " FROM warehouse WHERE businessUnitCode > $1 AND archivedAt IS NULL ORDER BY businessUnitCode LIMIT $2")
+            .execute(Tuple.of(buCode, limit));
+    return rows.map(rowSet -> {
+      var warehouses = new ArrayList<Warehouse>(rowSet.size());
+      rowSet.forEach(row -> warehouses.add(toWarehouse(row)));
+      return warehouses;
+    });
+  }
+
+  @Override
+  public Uni<LocationOccupancy> getOccupancyByLocation(String location) {
+    return client.preparedQuery("SELECT COUNT(*), COALESCE(SUM(capacity), 0), COALESCE(SUM(stock), 0) FROM warehouse WHERE location = $1 AND archivedAt IS NULL")
+        .execute(Tuple.of(location))
+        .map(rowSet -> {
+          var totals = rowSet.iterator().next();
+          return new LocationOccupancy(totals.getLong(0), totals.getLong(1), totals.getLong(2));
+        });
+  }
+
+  @Override
+  public Uni<Warehouse> findByBusinessUnitCode(String buCode) {
+    return client.preparedQuery("SELECT " + COLUMNS + " FROM warehouse WHERE businessUnitCode = $1 AND archivedAt IS NULL")
+        .execute(Tuple.of(buCode))
+        .map(rowSet -> rowSet.size() == 0 ? null : toWarehouse(rowSet.iterator().next()));
+  }
+
+  @Override
+  public Uni<Void> lockLocations(Collection<String> locations) {
+    // one at a time and in identifier order, like StripedLocationLock
+    return Multi.createFrom().iterable(new TreeSet<>(locations))
+        .onItem().transformToUniAndConcatenate(location -> client
+            .preparedQuery("SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock($1, hashtext($2))) AS l")
+            .execute(Tuple.of(StripedLocationLock.ADVISORY_LOCK_NAMESPACE, location)))
+        .collect().last()
+        .replaceWithVoid();
+  }
+
+  @Override
+  public Uni<Warehouse> create(Warehouse warehouse) {
+    warehouse.createdAt = WarehouseRepository.creationTime();
+    warehouse.archivedAt = null;
+    // ids drawn from the sequence are never handed out by the Hibernate pooled optimizer, which only uses the
+    // values it draws itself
+    return client.preparedQuery("INSERT INTO warehouse (id, " + COLUMNS + ") VALUES (nextval('warehouse_seq'), $1, $2, $3, $4, $5, NULL, 0)")
+        .execute(Tuple.of(warehouse.businessUnitCode, warehouse.location, warehouse.capacity, warehouse.stock, warehouse.createdAt))
+        .replaceWith(warehouse);
+  }
+
+  @Override
+  public Uni<Void> update(Warehouse warehouse) {
+    var archivedAt = warehouse.archivedAt != null ? warehouse.archivedAt : LocalDateTime.now();
+    Uni<RowSet<Row>> archived = warehouse.version == null
+        ? client.preparedQuery("UPDATE warehouse SET archivedAt = $1 WHERE businessUnitCode = $2 AND archivedAt IS NULL")
+            .execute(Tuple.of(archivedAt, warehouse.businessUnitCode))
+        : client.preparedQuery("UPDATE warehouse SET archivedAt = $1, version = version + 1 WHERE businessUnitCode = $2 AND archivedAt IS NULL AND version = $3")
+            .execute(Tuple.of(archivedAt, warehouse.businessUnitCode, warehouse.version));
+    return archived.map(rowSet -> {
+      if (warehouse.version != null && rowSet.rowCount() == 0) {
+        throw new OptimisticLockException("Warehouse " + warehouse.businessUnitCode + " was changed concurrently");
+      }
+      return null;
+    });
+  }
+
+  private static Warehouse toWarehouse(Row row) {
+    var warehouse = new Warehouse();
+    warehouse.businessUnitCode = row.getString(0);
+    warehouse.location = row.getString(1);
+    warehouse.capacity = row.getInteger(2);
+    warehouse.stock = row.getInteger(3);
+    warehouse.createdAt = row.getLocalDateTime(4);
+    warehouse.archivedAt = row.getLocalDateTime(5);
+    warehouse.version = row.getLong(6);
+    return warehouse;
+  }
+}
@@ -0,0 +1,149 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.Transactional;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Serialises the writers of a location while letting different locations proceed in parallel.
+ *
+ * <p>Within this instance a location maps to one of a fixed number of stripes, so concurrent requests queue on a
+ * semaphore instead of on a database connection. Across instances a PostgreSQL transaction-level advisory lock keyed
+ * by the location is taken as well. Both are held until the transaction commits or rolls back, so the next writer
+ * always reads the occupancy left by the previous one.
+ *
+ * <p>Stripes are taken in ascending order and advisory locks in identifier order, so transactions locking several
+ * locations (a replace across locations, a batch) cannot deadlock each other. That order only covers the locations of
+ * one call: a transaction must lock all its locations at once, and a later call that adds one fails instead of
+ * taking it out of order.
+ *
+ * <p>With the embedded warehouse store there is a single instance and no warehouse table to guard: the stripes alone
+ * serialise the writers and no advisory lock is taken.
+ */
+@ApplicationScoped
+public class StripedLocationLock implements LocationLock {
+
+  // first half of the advisory lock key, keeping these locks apart from other advisory lock users
+  static final int ADVISORY_LOCK_NAMESPACE = 0x57484c4b;
+
+  private static final String HELD_STRIPES = StripedLocationLock.class.getName() + ".heldStripes";
+  private static final String LOCKED_LOCATIONS = StripedLocationLock.class.getName() + ".lockedLocations";
+
+  private final EntityManager entityManager;
+  private final TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+  private final Semaphore[] stripes;
+  private final long timeoutNanos;
+  private final boolean advisoryLocks;
+
+  @Inject
+  public StripedLocationLock(EntityManager entityManager,
+      TransactionSynchronizationRegistry transactionSynchronizationRegistry,
+      @ConfigProperty(name = "warehouse.location-lock.stripes", defaultValue = "64") int stripes,
+      @ConfigProperty(name = "warehouse.location-lock.timeout", defaultValue = "10S") Duration timeout,
+      @ConfigProperty(name = "warehouse.store", defaultValue = "database") String store) {
+    this(entityManager, transactionSynchronizationRegistry, stripes, timeout, !"embedded".equals(store));
+  }
+
+  public StripedLocationLock(EntityManager entityManager,
+      TransactionSynchronizationRegistry transactionSynchronizationRegistry, int stripes, Duration timeout) {
+    this(entityManager, transactionSynchronizationRegistry, stripes, timeout, true);
+  }
+
+  private StripedLocationLock(EntityManager entityManager,
+      TransactionSynchronizationRegistry transactionSynchronizationRegistry, int stripes, Duration timeout,
+      boolean advisoryLocks) {
+    this.entityManager = entityManager;
+    this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+    // a power of two, so that a stripe is picked with a mask
+    this.stripes = new Semaphore[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+    for (int i = 0; i < this.stripes.length; i++) {
+      this.stripes[i] = new Semaphore(1);
+    }
+    this.timeoutNanos = timeout.toNanos();
+    this.advisoryLocks = advisoryLocks;
+  }
+
+  @Override
+  @Transactional(Transactional.TxType.MANDATORY)
+  public void lock(Collection<String> locationIdentifiers) {
+    var identifiers = new TreeSet<>(locationIdentifiers);
+    @SuppressWarnings("unchecked")
+    var locked = (Set<String>) transactionSynchronizationRegistry.getResource(LOCKED_LOCATIONS);
+    if (locked == null) {
+      transactionSynchronizationRegistry.putResource(LOCKED_LOCATIONS, identifiers);
+    } else if (!locked.containsAll(identifiers)) {
+      throw new IllegalStateException("Locations " + identifiers + " locked after " + locked
+          + " in the same transaction: all of them must be locked in one call");
+    }
+    var held = heldStripes();
+    var wanted = new BitSet(stripes.length);
+    identifiers.forEach(identifier -> wanted.set(stripeOf(identifier)));
+    wanted.andNot(held);
+    for (int stripe = wanted.nextSetBit(0); stripe >= 0; stripe = wanted.nextSetBit(stripe + 1)) {
+      acquire(stripe);
+      held.set(stripe);
+    }
+    if (!advisoryLocks) {
+      return;
+    }
+    for (String identifier : identifiers) {
+      // re-entrant within a transaction, released by PostgreSQL on commit or rollback
+      entityManager.createNativeQuery("SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(?1, hashtext(?2))) AS l")
+          .setParameter(1, ADVISORY_LOCK_NAMESPACE)
+          .setParameter(2, identifier)
+          .getSingleResult();
+    }
+  }
+
+  int stripeOf(String locationIdentifier) {
+    int hash = locationIdentifier.hashCode();
+    return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+  }
+
+  private void acquire(int stripe) {
+    try {
+      if (!stripes[stripe].tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new LockTimeoutException("Timed out waiting for a concurrent change of the same location");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new LockTimeoutException("Interrupted while waiting for a concurrent change of the same location");
+    }
+  }
+
+  // the stripes of the current transaction, released when it completes whatever thread completes it
+  private BitSet heldStripes() {
+    var held = (BitSet) transactionSynchronizationRegistry.getResource(HELD_STRIPES);
+    if (held == null) {
+      var stripesOfTransaction = new BitSet(stripes.length);
+      transactionSynchronizationRegistry.putResource(HELD_STRIPES, stripesOfTransaction);
+      transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+          for (int stripe = stripesOfTransaction.nextSetBit(0); stripe >= 0; stripe = stripesOfTransaction.nextSetBit(stripe + 1)) {
+            stripes[stripe].release();
+          }
+        }
+      });
+      held = stripesOfTransaction;
+    }
+    return held;
+  }
+}
@@ -1,57 +1,214 @@
 package com.fulfilment.application.monolith.warehouses.adapters.database;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.ConditionalCreateOutcome;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseRevision;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseReadModel;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.fulfilment.application.monolith.warehouses.mapper.WarehouseMapper;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.jpa.SpecHints;
 
 @ApplicationScoped
-public class WarehouseRepository implements WarehouseStore, PanacheRepository<DbWarehouse> {
+public class WarehouseRepository implements WarehouseStore, WarehouseReadModel, PanacheRepository<DbWarehouse> {
+
+  // rows fetched per round trip while streaming, so the JDBC driver never buffers the whole result set
+  private static final int STREAM_FETCH_SIZE = 500;
+
+  // read-only endpoints: the API bean is filled from the selected columns, matched by alias, and no entity is loaded
+  private static final String ACTIVE_API_WAREHOUSES = "SELECT new com.warehouse.api.beans.Warehouse("
+      + "w.businessUnitCode AS businessUnitCode, w.location AS location, w.capacity AS capacity, w.stock AS stock)"
+      + " FROM DbWarehouse w WHERE w.archivedAt IS NULL";
+
+  // ?1 business unit code, ?2 location, ?3 capacity, ?4 stock, ?5 creation time, ?6 max number of warehouses and
+  // ?7 max capacity of the location. The checks read the rows as of the start of the statement, hence the location
+  // lock taken before it; the partial unique index still stops a duplicate business unit code.
+  private static final String CONDITIONAL_INSERT = "WITH existing AS ("
+      + " SELECT COUNT(*) AS warehouses FROM warehouse WHERE businessUnitCode = ?1 AND archivedAt IS NULL"
+      + "), occupancy AS ("
+      + " SELECT COUNT(*) AS warehouses, COALESCE(SUM(capacity), 0) AS capacity, COALESCE(SUM(stock), 0) AS stock"
+      + " FROM warehouse WHERE location = ?2 AND archivedAt IS NULL"
+      + "), inserted AS ("
+      + " INSERT INTO warehouse (id, businessUnitCode, location, capacity, stock, createdAt, archivedAt, version)"
+      + " SELECT nextval('warehouse_seq'), ?1, ?2, ?3, ?4, ?5, NULL, 0 FROM existing, occupancy"
+      + " WHERE existing.warehouses = 0 AND occupancy.warehouses < ?6 AND occupancy.capacity + ?3 <= ?7"
+      + " RETURNING id"
+      + ") SELECT (SELECT COUNT(*) FROM inserted), existing.warehouses, occupancy.warehouses, occupancy.capacity,"
+      + " occupancy.stock FROM existing, occupancy";
 
   @Override
   public List<Warehouse> getAll() {
     return this.list("archivedAt IS NULL").stream().map(DbWarehouse::toWarehouse).collect(Collectors.toUnmodifiableList());
   }
 
+  @Override
+  public List<Warehouse> getAllAfter(String buCode, int limit) {
+    var query = buCode == null
+        ? find("archivedAt IS NULL", Sort.by("businessUnitCode"))
+        : find("businessUnitCode > ?1 AND archivedAt IS NULL", Sort.by("businessUnitCode"), buCode);
+    return query.page(0, limit).list().stream().map(DbWarehouse::toWarehouse).collect(Collectors.toUnmodifiableList());
+  }
+
+  // same page as getAllAfter, selected straight into the response bodies
+  @Override
+  public List<com.warehouse.api.beans.Warehouse> getApiWarehousesAfter(String buCode, int limit) {
+    var query = getEntityManager().createQuery(ACTIVE_API_WAREHOUSES
+        + (buCode == null ? "" : " AND w.businessUnitCode > :after")
+        + " ORDER BY w.businessUnitCode", com.warehouse.api.beans.Warehouse.class);
+    if (buCode != null) {
+      query.setParameter("after", buCode);
+    }
+    return query.setMaxResults(limit).getResultList();
+  }
+
+  // same rows as streamAllActive, selected straight into the response bodies
+  @Override
+  public Stream<com.warehouse.api.beans.Warehouse> streamApiWarehouses() {
+    return getEntityManager()
+        .createQuery(ACTIVE_API_WAREHOUSES + " ORDER BY w.businessUnitCode", com.warehouse.api.beans.Warehouse.class)
+        .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+        .getResultStream();
+  }
+
+  @Override
+  public Stream<Warehouse> streamAllActive() {
+    return find("archivedAt IS NULL", Sort.by("businessUnitCode"))
+        .withHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+        .withHint(HibernateHints.HINT_READ_ONLY, true)
+        .withHint(SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS)
+        .stream()
+        .map(warehouse -> {
+          // keep the persistence context empty, otherwise it grows with every row read
+          getEntityManager().detach(warehouse);
+          return warehouse.toWarehouse();
+        });
+  }
+
   @Override
   public List<Warehouse> getAllByLocation(String location) {
     return this.list("location = ?1 AND archivedAt IS NULL", location).stream().map(DbWarehouse::toWarehouse).collect(Collectors.toUnmodifiableList());
   }
 
+  @Override
+  public LocationOccupancy getOccupancyByLocation(String location) {
+    var totals = getEntityManager()
+        .createQuery("SELECT COUNT(w), COALESCE(SUM(w.capacity), 0), COALESCE(SUM(w.stock), 0) FROM DbWarehouse w WHERE w.location = ?1 AND w.archivedAt IS NULL", Object[].class)
+        .setParameter(1, location)
+        .getSingleResult();
+    return new LocationOccupancy(((Number) totals[0]).longValue(), ((Number) totals[1]).longValue(), ((Number) totals[2]).longValue());
+  }
+
   @Override
   public Warehouse create(Warehouse warehouse) {
-    warehouse.createdAt = LocalDateTime.now();
+    warehouse.createdAt = creationTime();
     warehouse.archivedAt = null;
     persist(WarehouseMapper.INSTANCE.warehouseDtoToDbWarehouse(warehouse));
     return warehouse;
   }
 
+  @Override
+  public ConditionalCreateOutcome createIfWithinLimits(Warehouse warehouse, int maxNumberOfWarehouses, int maxCapacity) {
+    var createdAt = creationTime();
+    var row = (Object[]) getEntityManager().createNativeQuery(CONDITIONAL_INSERT)
+        .unwrap(NativeQuery.class)
+        // flushes the pending warehouse changes first, so that the checks see them
+        .addSynchronizedEntityClass(DbWarehouse.class)
+        .setParameter(1, warehouse.businessUnitCode)
+        .setParameter(2, warehouse.location)
+        .setParameter(3, warehouse.capacity)
+        .setParameter(4, warehouse.stock)
+        .setParameter(5, createdAt)
+        .setParameter(6, maxNumberOfWarehouses)
+        .setParameter(7, maxCapacity)
+        .getSingleResult();
+    boolean created = ((Number) row[0]).longValue() > 0;
+    if (created) {
+      warehouse.createdAt = createdAt;
+      warehouse.archivedAt = null;
+    }
+    return new ConditionalCreateOutcome(created, ((Number) row[1]).longValue() > 0,
+        new LocationOccupancy(((Number) row[2]).longValue(), ((Number) row[3]).longValue(), ((Number) row[4]).longValue()));
+  }
+
+  @Override
+  public List<Warehouse> createAll(List<Warehouse> warehouses) {
+    var now = creationTime();
+    for (Warehouse warehouse : warehouses) {
+      warehouse.createdAt = now;
+      warehouse.archivedAt = null;
+      persist(WarehouseMapper.INSTANCE.warehouseDtoToDbWarehouse(warehouse));
+    }
+    // the inserts are sent in JDBC batches (quarkus.hibernate-orm.jdbc.statement-batch-size)
+    flush();
+    return warehouses;
+  }
+
   @Override
   public void update(Warehouse warehouse) {
-    var warehouseDb = list("businessUnitCode = ?1 AND archivedAt IS NULL", warehouse.businessUnitCode).stream().findFirst().orElse(null);
-    warehouseDb.archivedAt = LocalDateTime.now();
-    persist(warehouseDb);
+    var archivedAt = warehouse.archivedAt != null ? warehouse.archivedAt : LocalDateTime.now();
+    // a single bulk UPDATE: no select, no dirty checking, and it runs before the insert of a replacement
+    if (warehouse.version == null) {
+      update("archivedAt = ?1 WHERE businessUnitCode = ?2 AND archivedAt IS NULL", archivedAt, warehouse.businessUnitCode);
+      return;
+    }
+    // read earlier: only archived if nobody replaced or archived it since
+    var archived = update("archivedAt = ?1, version = version + 1 WHERE businessUnitCode = ?2 AND archivedAt IS NULL AND version = ?3",
+        archivedAt, warehouse.businessUnitCode, warehouse.version);
+    if (archived == 0) {
+      throw new OptimisticLockException("Warehouse " + warehouse.businessUnitCode + " was changed concurrently");
+    }
   }
 
   @Override
   public void remove(Warehouse warehouse) {
-    // TODO Auto-generated method stub
-    throw new UnsupportedOperationException("Unimplemented method 'remove'");
+    delete("businessUnitCode = ?1 AND archivedAt IS NULL", warehouse.businessUnitCode);
   }
 
   @Override
-  public Warehouse findByBusinessUnitCode(String buCode) {
-    var warehouse = list("businessUnitCode = ?1 AND archivedAt IS NULL", buCode).stream().findFirst().orElse(null);
-    if (warehouse == null) {
-      return null;
-    } else {
-      return warehouse.toWarehouse();
+  public Optional<Warehouse> findByBusinessUnitCode(String buCode) {
+    return find("businessUnitCode = ?1 AND archivedAt IS NULL", buCode).firstResultOptional().map(DbWarehouse::toWarehouse);
+  }
+
+  @Override
+  public Optional<WarehouseRevision> findRevisionByBusinessUnitCode(String buCode) {
+    return getEntityManager()
+        .createQuery("SELECT new com.fulfilment.application.monolith.warehouses.domain.models.WarehouseRevision(w.createdAt, w.version) FROM DbWarehouse w WHERE w.businessUnitCode = ?1 AND w.archivedAt IS NULL", WarehouseRevision.class)
+        .setParameter(1, buCode)
+        .getResultStream()
+        .findFirst();
+  }
+
+  @Override
+  public Set<String> findActiveBusinessUnitCodes(Collection<String> buCodes) {
+    if (buCodes.isEmpty()) {
+      return Set.of();
     }
+    return new HashSet<>(getEntityManager()
+        .createQuery("SELECT w.businessUnitCode FROM DbWarehouse w WHERE w.businessUnitCode IN ?1 AND w.archivedAt IS NULL", String.class)
+        .setParameter(1, buCodes)
+        .getResultList());
+  }
+
+  // the precision of the timestamp column: the warehouse returned is equal to the one read back later
+  static LocalDateTime creationTime() {
+    return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
   }
 }
@@ -0,0 +1,346 @@
+package com.fulfilment.application.monolith.warehouses.adapters.embedded;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.ConditionalCreateOutcome;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseRevision;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseReadModel;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import com.fulfilment.application.monolith.warehouses.mapper.WarehouseMapper;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.runtime.configuration.MemorySize;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * A {@link WarehouseStore} held in memory and made durable by a {@link WarehouseLog}, for sites without PostgreSQL.
+ * It replaces {@code WarehouseRepository} when the application is built with {@code warehouse.store=embedded}.
+ *
+ * <p>Active warehouses are kept in a concurrent skip list by business unit code, which also orders the keyset pages,
+ * next to the business unit codes and the occupancy of every location. Rows are immutable and the maps non-blocking,
+ * so reads take no lock. Archived warehouses are only kept in the log and its snapshots: nothing reads them back.
+ *
+ * <p>A change is applied at once and logged with the others of its transaction, as one record, just before the
+ * commit; a rollback undoes it. Other transactions see it before the commit: as with the database, the writers of a
+ * location are serialised by the location lock. Outside a transaction a change is logged as it is made.
+ */
+@ApplicationScoped
+@Alternative
+@Priority(1)
+@IfBuildProperty(name = "warehouse.store", stringValue = "embedded")
+public class EmbeddedWarehouseStore implements WarehouseStore, WarehouseReadModel {
+
+  private static final Logger LOGGER = Logger.getLogger(EmbeddedWarehouseStore.class.getName());
+
+  private static final String PENDING_CHANGES = EmbeddedWarehouseStore.class.getName() + ".pendingChanges";
+
+  private final ConcurrentSkipListMap<String, WarehouseRow> active = new ConcurrentSkipListMap<>();
+  private final Map<String, Set<String>> businessUnitCodesByLocation = new ConcurrentHashMap<>();
+  private final Map<String, LocationOccupancy> occupancies = new ConcurrentHashMap<>();
+
+  private final TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+  private final WarehouseLog log;
+
+  @Inject
+  public EmbeddedWarehouseStore(TransactionSynchronizationRegistry transactionSynchronizationRegistry,
+      @ConfigProperty(name = "warehouse.store.embedded.directory", defaultValue = "warehouse-store") Path directory,
+      @ConfigProperty(name = "warehouse.store.embedded.segment-size", defaultValue = "64M") MemorySize segmentSize,
+      @ConfigProperty(name = "warehouse.store.embedded.fsync", defaultValue = "true") boolean fsync) throws IOException {
+    this(transactionSynchronizationRegistry, directory, segmentSize.asLongValue(), fsync);
+  }
+
+  EmbeddedWarehouseStore(TransactionSynchronizationRegistry transactionSynchronizationRegistry, Path directory,
+      long segmentSize, boolean fsync) throws IOException {
+    this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+    var image = new WarehouseLog.Image();
+    this.log = WarehouseLog.open(directory, segmentSize, fsync, image);
+    image.active.values().forEach(row -> {
+      active.put(row.businessUnitCode, row);
+      index(row);
+    });
+    LOGGER.infof("Recovered %d active and %d archived warehouses from %s", active.size(), image.archived.size(), directory);
+  }
+
+  @PreDestroy
+  void close() throws IOException {
+    log.close();
+  }
+
+  @Scheduled(every = "${warehouse.store.embedded.snapshot-interval:10m}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void snapshot() {
+    try {
+      if (log.compact()) {
+        LOGGER.debugf("Snapshot written with %d active warehouses", active.size());
+      }
+    } catch (IOException e) {
+      // the log keeps growing, nothing is lost: the next run tries again
+      LOGGER.error("Cannot write a snapshot of the warehouse store", e);
+    }
+  }
+
+  @Override
+  public List<Warehouse> getAll() {
+    return active.values().stream().map(WarehouseRow::toWarehouse).collect(Collectors.toUnmodifiableList());
+  }
+
+  @Override
+  public List<Warehouse> getAllAfter(String buCode, int limit) {
+    var rows = buCode == null ? active : active.tailMap(buCode, false);
+    return rows.values().stream().limit(limit).map(WarehouseRow::toWarehouse).collect(Collectors.toUnmodifiableList());
+  }
+
+  @Override
+  public Stream<Warehouse> streamAllActive() {
+    return active.values().stream().map(WarehouseRow::toWarehouse);
+  }
+
+  // the rows are already in memory: mapped to the response bodies, there is no query to project
+  @Override
+  public List<com.warehouse.api.beans.Warehouse> getApiWarehousesAfter(String buCode, int limit) {
+    return getAllAfter(buCode, limit).stream().map(WarehouseMapper.INSTANCE::warehouseToPojoWarehouse).toList();
+  }
+
+  @Override
+  public Stream<com.warehouse.api.beans.Warehouse> streamApiWarehouses() {
+    return streamAllActive().map(WarehouseMapper.INSTANCE::warehouseToPojoWarehouse);
+  }
+
+  @Override
+  public List<Warehouse> getAllByLocation(String location) {
+    var businessUnitCodes = location == null ? null : businessUnitCodesByLocation.get(location);
+    if (businessUnitCodes == null) {
+      return List.of();
+    }
+    return businessUnitCodes.stream()
+        .map(active::get)
+        .filter(row -> row != null && location.equals(row.location))
+        .map(WarehouseRow::toWarehouse)
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  @Override
+  public LocationOccupancy getOccupancyByLocation(String location) {
+    return location == null ? LocationOccupancy.EMPTY : occupancies.getOrDefault(location, LocationOccupancy.EMPTY);
+  }
+
+  @Override
+  public Warehouse create(Warehouse warehouse) {
+    // as precise as the timestamp column of the database store
+    warehouse.createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    warehouse.archivedAt = null;
+    insert(WarehouseRow.created(warehouse));
+    return warehouse;
+  }
+
+  @Override
+  public ConditionalCreateOutcome createIfWithinLimits(Warehouse warehouse, int maxNumberOfWarehouses, int maxCapacity) {
+    var occupancy = getOccupancyByLocation(warehouse.location);
+    boolean alreadyExists = active.containsKey(warehouse.businessUnitCode);
+    if (alreadyExists || occupancy.numberOfWarehouses >= maxNumberOfWarehouses
+        || occupancy.totalCapacity + warehouse.capacity > maxCapacity) {
+      return new ConditionalCreateOutcome(false, alreadyExists, occupancy);
+    }
+    create(warehouse);
+    return new ConditionalCreateOutcome(true, false, occupancy);
+  }
+
+  @Override
+  public List<Warehouse> createAll(List<Warehouse> warehouses) {
+    var now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    for (Warehouse warehouse : warehouses) {
+      warehouse.createdAt = now;
+      warehouse.archivedAt = null;
+      insert(WarehouseRow.created(warehouse));
+    }
+    return warehouses;
+  }
+
+  @Override
+  public void update(Warehouse warehouse) {
+    var archivedAt = warehouse.archivedAt != null ? warehouse.archivedAt : LocalDateTime.now();
+    while (true) {
+      var current = active.get(warehouse.businessUnitCode);
+      if (warehouse.version != null && (current == null || current.version != warehouse.version)) {
+        throw new OptimisticLockException("Warehouse " + warehouse.businessUnitCode + " was changed concurrently");
+      }
+      if (current == null) {
+        return;
+      }
+      // like the bulk update of the database, the version only moves when the caller holds one
+      var archivedRow = current.archived(archivedAt, warehouse.version == null ? current.version : current.version + 1);
+      if (active.remove(current.businessUnitCode, current)) {
+        unindex(current);
+        record(new WarehouseLog.Entry(WarehouseLog.Type.ARCHIVE, archivedRow),
+            new WarehouseLog.Entry(WarehouseLog.Type.RESTORE, current));
+        return;
+      }
+      // replaced meanwhile: read it again
+    }
+  }
+
+  @Override
+  public void remove(Warehouse warehouse) {
+    var current = warehouse.businessUnitCode == null ? null : active.get(warehouse.businessUnitCode);
+    // replaced or removed meanwhile: like the bulk delete of the database, nothing left to delete
+    if (current != null && active.remove(current.businessUnitCode, current)) {
+      unindex(current);
+      record(new WarehouseLog.Entry(WarehouseLog.Type.DELETE, current), new WarehouseLog.Entry(WarehouseLog.Type.RESTORE, current));
+    }
+  }
+
+  @Override
+  public Optional<Warehouse> findByBusinessUnitCode(String buCode) {
+    return Optional.ofNullable(buCode == null ? null : active.get(buCode)).map(WarehouseRow::toWarehouse);
+  }
+
+  @Override
+  public Optional<WarehouseRevision> findRevisionByBusinessUnitCode(String buCode) {
+    return Optional.ofNullable(buCode == null ? null : active.get(buCode))
+        .map(row -> new WarehouseRevision(row.createdAt, row.version));
+  }
+
+  @Override
+  public Set<String> findActiveBusinessUnitCodes(Collection<String> buCodes) {
+    return buCodes.stream().filter(Objects::nonNull).filter(active::containsKey).collect(Collectors.toCollection(HashSet::new));
+  }
+
+  private void insert(WarehouseRow row) {
+    if (active.putIfAbsent(row.businessUnitCode, row) != null) {
+      // what the unique index on the active business unit codes does in the database
+      throw new EntityExistsException("Warehouse " + row.businessUnitCode + " already exists");
+    }
+    index(row);
+    record(new WarehouseLog.Entry(WarehouseLog.Type.PUT, row), new WarehouseLog.Entry(WarehouseLog.Type.DELETE, row));
+  }
+
+  // false when another transaction took the business unit code in the meantime, the warehouse then stays archived
+  private boolean undo(WarehouseLog.Entry undo) {
+    var row = undo.row;
+    if (undo.type == WarehouseLog.Type.DELETE) {
+      if (active.remove(row.businessUnitCode, row)) {
+        unindex(row);
+      }
+      return true;
+    }
+    if (active.putIfAbsent(row.businessUnitCode, row) != null) {
+      return false;
+    }
+    index(row);
+    return true;
+  }
+
+  private void index(WarehouseRow row) {
+    if (row.location == null) {
+      return;
+    }
+    businessUnitCodesByLocation.computeIfAbsent(row.location, location -> ConcurrentHashMap.newKeySet()).add(row.businessUnitCode);
+    occupancies.merge(row.location, new LocationOccupancy(1, valueOf(row.capacity), valueOf(row.stock)), EmbeddedWarehouseStore::sum);
+  }
+
+  private void unindex(WarehouseRow row) {
+    if (row.location == null) {
+      return;
+    }
+    var businessUnitCodes = businessUnitCodesByLocation.get(row.location);
+    if (businessUnitCodes != null) {
+      businessUnitCodes.remove(row.businessUnitCode);
+    }
+    occupancies.merge(row.location, new LocationOccupancy(-1, -valueOf(row.capacity), -valueOf(row.stock)), EmbeddedWarehouseStore::sum);
+  }
+
+  private void record(WarehouseLog.Entry change, WarehouseLog.Entry undo) {
+    if (transactionSynchronizationRegistry == null || transactionSynchronizationRegistry.getTransactionKey() == null) {
+      try {
+        log.append(List.of(change));
+      } catch (IOException e) {
+        undo(undo);
+        throw new UncheckedIOException("Cannot append to the warehouse log", e);
+      }
+      return;
+    }
+    var pending = (PendingChanges) transactionSynchronizationRegistry.getResource(PENDING_CHANGES);
+    if (pending == null) {
+      pending = new PendingChanges();
+      transactionSynchronizationRegistry.putResource(PENDING_CHANGES, pending);
+      transactionSynchronizationRegistry.registerInterposedSynchronization(pending);
+    }
+    pending.changes.add(change);
+    pending.undos.add(undo);
+  }
+
+  // the changes of a transaction: logged together before it commits, undone if it rolls back
+  private final class PendingChanges implements Synchronization {
+    final List<WarehouseLog.Entry> changes = new ArrayList<>();
+    final List<WarehouseLog.Entry> undos = new ArrayList<>();
+    boolean logged;
+
+    @Override
+    public void beforeCompletion() {
+      try {
+        log.append(changes);
+        logged = true;
+      } catch (IOException e) {
+        // rolls the transaction back
+        throw new UncheckedIOException("Cannot append to the warehouse log", e);
+      }
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      if (status == Status.STATUS_COMMITTED) {
+        return;
+      }
+      var compensations = new ArrayList<WarehouseLog.Entry>(undos.size());
+      for (int i = undos.size() - 1; i >= 0; i--) {
+        if (undo(undos.get(i))) {
+          compensations.add(undos.get(i));
+        }
+      }
+      if (logged) {
+        // logged, then rolled back by another participant of the transaction
+        try {
+          log.append(compensations);
+        } catch (IOException e) {
+          LOGGER.error("Cannot log the rollback of warehouse changes, they would come back on recovery", e);
+        }
+      }
+    }
+  }
+
+  private static long valueOf(Integer value) {
+    return value == null ? 0 : value;
+  }
+
+  private static LocationOccupancy sum(LocationOccupancy a, LocationOccupancy b) {
+    return new LocationOccupancy(a.numberOfWarehouses + b.numberOfWarehouses, a.totalCapacity + b.totalCapacity,
+        a.totalStock + b.totalStock);
+  }
+}
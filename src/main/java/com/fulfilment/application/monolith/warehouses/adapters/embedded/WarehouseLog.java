@@ -0,0 +1,446 @@
+package com.fulfilment.application.monolith.warehouses.adapters.embedded;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log of the {@link EmbeddedWarehouseStore}, with the snapshots that keep its replay short.
+ *
+ * <p>The changes of a transaction are appended as one record, framed {@code [payload length][crc32][payload]}, to
+ * numbered segments rotated once they reach the configured size. A record torn by a crash fails its checksum: the
+ * transaction is dropped as a whole on recovery and the segment is cut off there.
+ *
+ * <p>{@link #compact()} seals the current segment, then folds the last snapshot and the sealed segments into a new
+ * snapshot, written aside and moved in place, before deleting what it covers. It only reads files, so appending goes
+ * on meanwhile. Recovery loads the newest complete snapshot and replays the segments written after it.
+ */
+final class WarehouseLog implements Closeable {
+
+  enum Type {
+    // the active warehouse of its business unit code
+    PUT,
+    // the active warehouse of its business unit code archived
+    ARCHIVE,
+    // an active warehouse removed, undoing its creation
+    DELETE,
+    // an archived warehouse active again, undoing its archiving
+    RESTORE,
+    // closes a snapshot: one without it was torn
+    END
+  }
+
+  static final class Entry {
+    final Type type;
+    final WarehouseRow row;
+
+    Entry(Type type, WarehouseRow row) {
+      this.type = type;
+      this.row = row;
+    }
+  }
+
+  // the warehouses a sequence of entries leads to
+  static final class Image {
+    final Map<String, WarehouseRow> active = new HashMap<>();
+    // by stored warehouse, so that undoing an archiving does not scan the history
+    final Map<String, WarehouseRow> archived = new LinkedHashMap<>();
+
+    void apply(Entry entry) {
+      var row = entry.row;
+      switch (entry.type) {
+        case PUT:
+          active.put(row.businessUnitCode, row);
+          break;
+        case ARCHIVE:
+          active.computeIfPresent(row.businessUnitCode, (code, current) -> current.isSameWarehouseAs(row) ? null : current);
+          archived.put(row.storedKey(), row);
+          break;
+        case DELETE:
+          active.computeIfPresent(row.businessUnitCode, (code, current) -> current.isSameWarehouseAs(row) ? null : current);
+          break;
+        case RESTORE:
+          archived.remove(row.storedKey());
+          active.put(row.businessUnitCode, row);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private static final String SEGMENT_PREFIX = "warehouses-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String SNAPSHOT_PREFIX = "snapshot-";
+  private static final String SNAPSHOT_SUFFIX = ".snapshot";
+  private static final int HEADER_BYTES = Integer.BYTES * 2;
+  // rows per snapshot record, so that a large snapshot is never encoded in one buffer
+  private static final int SNAPSHOT_RECORD_ENTRIES = 1000;
+  private static final Type[] TYPES = Type.values();
+
+  private final Path directory;
+  private final long maxSegmentBytes;
+  private final boolean fsync;
+
+  private final Object writeLock = new Object();
+  private final Object syncLock = new Object();
+  private final Object compactLock = new Object();
+
+  // guarded by writeLock
+  private FileChannel channel;
+  private int segment;
+  private long appended;
+
+  // guarded by syncLock
+  private long synced;
+
+  // guarded by compactLock: the snapshot holds the segments before this one
+  private int snapshotSegment;
+
+  private WarehouseLog(Path directory, long maxSegmentBytes, boolean fsync) {
+    this.directory = directory;
+    this.maxSegmentBytes = maxSegmentBytes;
+    this.fsync = fsync;
+  }
+
+  /** Opens the log in {@code directory}, recovering into {@code image} what it holds, ready to append after it. */
+  static WarehouseLog open(Path directory, long maxSegmentBytes, boolean fsync, Image image) throws IOException {
+    Files.createDirectories(directory);
+    var log = new WarehouseLog(directory, maxSegmentBytes, fsync);
+    log.snapshotSegment = loadLatestSnapshot(directory, image);
+    log.segment = log.snapshotSegment;
+    Path previous = null;
+    long validLength = 0;
+    for (Path segment : numbered(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+      int number = number(segment, SEGMENT_PREFIX, SEGMENT_SUFFIX);
+      if (number < log.snapshotSegment) {
+        // already in the snapshot, left over by a compaction interrupted before it deleted them
+        continue;
+      }
+      if (previous != null && validLength < Files.size(previous)) {
+        // only the tail of the last segment can be torn by a crash: rotation forces a segment before moving on
+        throw new IOException("Corrupted record in " + previous + ", which is not the last segment");
+      }
+      log.segment = number;
+      previous = segment;
+      try (var segmentChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+        validLength = readRecords(segmentChannel, image::apply);
+      }
+    }
+    log.channel = FileChannel.open(log.segmentPath(log.segment),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    log.channel.truncate(validLength);
+    log.channel.position(validLength);
+    return log;
+  }
+
+  /** Appends the changes of a transaction as one record; durable when it returns, unless fsync is disabled. */
+  void append(List<Entry> entries) throws IOException {
+    if (entries.isEmpty()) {
+      return;
+    }
+    var record = encode(entries);
+    long sequence;
+    synchronized (writeLock) {
+      if (channel.position() > 0 && channel.position() + record.remaining() > maxSegmentBytes) {
+        rotate();
+      }
+      while (record.hasRemaining()) {
+        channel.write(record);
+      }
+      sequence = ++appended;
+    }
+    if (fsync) {
+      awaitDurable(sequence);
+    }
+  }
+
+  /** Folds the segments written since the last snapshot into a new one; returns false when there were none. */
+  boolean compact() throws IOException {
+    synchronized (compactLock) {
+      int sealedUpTo;
+      synchronized (writeLock) {
+        if (channel.position() > 0) {
+          rotate();
+        }
+        sealedUpTo = segment;
+      }
+      if (sealedUpTo == snapshotSegment) {
+        return false;
+      }
+      var image = new Image();
+      var previousSnapshot = snapshotPath(snapshotSegment);
+      if (Files.exists(previousSnapshot) && !readSnapshot(previousSnapshot, image)) {
+        throw new IOException("Snapshot " + previousSnapshot + " is incomplete");
+      }
+      for (int number = snapshotSegment; number < sealedUpTo; number++) {
+        var sealed = segmentPath(number);
+        if (Files.exists(sealed)) {
+          try (var segmentChannel = FileChannel.open(sealed, StandardOpenOption.READ)) {
+            readRecords(segmentChannel, image::apply);
+          }
+        }
+      }
+      writeSnapshot(image, sealedUpTo);
+      for (Path file : numbered(directory, SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+        if (number(file, SEGMENT_PREFIX, SEGMENT_SUFFIX) < sealedUpTo) {
+          Files.delete(file);
+        }
+      }
+      for (Path file : numbered(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+        if (number(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX) < sealedUpTo) {
+          Files.delete(file);
+        }
+      }
+      snapshotSegment = sealedUpTo;
+      return true;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (writeLock) {
+      if (fsync) {
+        channel.force(false);
+      }
+      channel.close();
+    }
+  }
+
+  private void awaitDurable(long sequence) throws IOException {
+    synchronized (syncLock) {
+      if (synced >= sequence) {
+        // a force issued for another transaction already covered this record
+        return;
+      }
+      long target;
+      FileChannel current;
+      synchronized (writeLock) {
+        target = appended;
+        current = channel;
+      }
+      try {
+        current.force(false);
+      } catch (ClosedChannelException e) {
+        // rotated meanwhile: rotation forces a segment before closing it
+      }
+      synced = target;
+    }
+  }
+
+  private void rotate() throws IOException {
+    // even without fsync: only the last segment may end with a torn record
+    channel.force(false);
+    channel.close();
+    segment++;
+    channel = FileChannel.open(segmentPath(segment),
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+  }
+
+  private void writeSnapshot(Image image, int number) throws IOException {
+    var entries = new ArrayList<Entry>(image.active.size() + image.archived.size() + 1);
+    image.archived.values().forEach(row -> entries.add(new Entry(Type.ARCHIVE, row)));
+    image.active.values().forEach(row -> entries.add(new Entry(Type.PUT, row)));
+    entries.add(new Entry(Type.END, null));
+    var temporary = directory.resolve(SNAPSHOT_PREFIX + "next" + SNAPSHOT_SUFFIX + ".tmp");
+    try (var snapshotChannel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      for (int from = 0; from < entries.size(); from += SNAPSHOT_RECORD_ENTRIES) {
+        var record = encode(entries.subList(from, Math.min(entries.size(), from + SNAPSHOT_RECORD_ENTRIES)));
+        while (record.hasRemaining()) {
+          snapshotChannel.write(record);
+        }
+      }
+      snapshotChannel.force(true);
+    }
+    Files.move(temporary, snapshotPath(number), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  // returns the number of the first segment not in the snapshot loaded, 0 when there is none
+  private static int loadLatestSnapshot(Path directory, Image image) throws IOException {
+    var snapshots = numbered(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+    for (int i = snapshots.size() - 1; i >= 0; i--) {
+      var candidate = new Image();
+      if (readSnapshot(snapshots.get(i), candidate)) {
+        image.active.putAll(candidate.active);
+        image.archived.putAll(candidate.archived);
+        return number(snapshots.get(i), SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+      }
+    }
+    return 0;
+  }
+
+  // false when the snapshot is incomplete
+  private static boolean readSnapshot(Path snapshot, Image image) throws IOException {
+    var complete = new boolean[1];
+    try (var snapshotChannel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+      readRecords(snapshotChannel, entry -> {
+        image.apply(entry);
+        complete[0] = entry.type == Type.END;
+      });
+    }
+    return complete[0];
+  }
+
+  // returns the length of the valid prefix of the file
+  private static long readRecords(FileChannel fileChannel, Consumer<Entry> consumer) throws IOException {
+    var header = ByteBuffer.allocate(HEADER_BYTES);
+    long position = 0;
+    long size = fileChannel.size();
+    while (position + HEADER_BYTES <= size) {
+      header.clear();
+      readFully(fileChannel, header, position);
+      int payloadLength = header.getInt(0);
+      int checksum = header.getInt(Integer.BYTES);
+      if (payloadLength < Integer.BYTES || position + HEADER_BYTES + payloadLength > size) {
+        break;
+      }
+      var payload = ByteBuffer.allocate(payloadLength);
+      readFully(fileChannel, payload, position + HEADER_BYTES);
+      var crc = new CRC32();
+      crc.update(payload.array());
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      for (int count = payload.getInt(); count > 0; count--) {
+        consumer.accept(decode(payload));
+      }
+      position += HEADER_BYTES + payloadLength;
+    }
+    return position;
+  }
+
+  private static void readFully(FileChannel fileChannel, ByteBuffer target, long position) throws IOException {
+    while (target.hasRemaining()) {
+      if (fileChannel.read(target, position + target.position()) < 0) {
+        break;
+      }
+    }
+    target.flip();
+  }
+
+  private static ByteBuffer encode(List<Entry> entries) throws IOException {
+    var bytes = new ByteArrayOutputStream(64 * entries.size());
+    var payload = new DataOutputStream(bytes);
+    // room for the header, filled in below
+    payload.writeLong(0);
+    payload.writeInt(entries.size());
+    for (Entry entry : entries) {
+      payload.writeByte(entry.type.ordinal());
+      if (entry.row != null) {
+        var row = entry.row;
+        writeString(payload, row.businessUnitCode);
+        writeString(payload, row.location);
+        writeInteger(payload, row.capacity);
+        writeInteger(payload, row.stock);
+        writeDateTime(payload, row.createdAt);
+        writeDateTime(payload, row.archivedAt);
+        payload.writeLong(row.version);
+      }
+    }
+    var record = ByteBuffer.wrap(bytes.toByteArray());
+    var crc = new CRC32();
+    crc.update(record.duplicate().position(HEADER_BYTES));
+    record.putInt(0, record.capacity() - HEADER_BYTES).putInt(Integer.BYTES, (int) crc.getValue());
+    return record;
+  }
+
+  private static Entry decode(ByteBuffer payload) {
+    var type = TYPES[payload.get()];
+    if (type == Type.END) {
+      return new Entry(type, null);
+    }
+    var row = new WarehouseRow(readString(payload), readString(payload), readInteger(payload), readInteger(payload),
+        readDateTime(payload), readDateTime(payload), payload.getLong());
+    return new Entry(type, row);
+  }
+
+  private static void writeString(DataOutputStream payload, String value) throws IOException {
+    if (value == null) {
+      payload.writeInt(-1);
+      return;
+    }
+    var bytes = value.getBytes(StandardCharsets.UTF_8);
+    payload.writeInt(bytes.length);
+    payload.write(bytes);
+  }
+
+  private static String readString(ByteBuffer payload) {
+    int length = payload.getInt();
+    if (length < 0) {
+      return null;
+    }
+    var value = new String(payload.array(), payload.position(), length, StandardCharsets.UTF_8);
+    payload.position(payload.position() + length);
+    return value;
+  }
+
+  private static void writeInteger(DataOutputStream payload, Integer value) throws IOException {
+    payload.writeBoolean(value != null);
+    payload.writeInt(value == null ? 0 : value);
+  }
+
+  private static Integer readInteger(ByteBuffer payload) {
+    boolean present = payload.get() != 0;
+    int value = payload.getInt();
+    return present ? value : null;
+  }
+
+  private static void writeDateTime(DataOutputStream payload, LocalDateTime value) throws IOException {
+    payload.writeBoolean(value != null);
+    payload.writeLong(value == null ? 0 : value.toEpochSecond(ZoneOffset.UTC));
+    payload.writeInt(value == null ? 0 : value.getNano());
+  }
+
+  private static LocalDateTime readDateTime(ByteBuffer payload) {
+    boolean present = payload.get() != 0;
+    long epochSecond = payload.getLong();
+    int nano = payload.getInt();
+    return present ? LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC) : null;
+  }
+
+  private Path segmentPath(int number) {
+    return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+  }
+
+  private Path snapshotPath(int number) {
+    return directory.resolve(String.format("%s%06d%s", SNAPSHOT_PREFIX, number, SNAPSHOT_SUFFIX));
+  }
+
+  private static List<Path> numbered(Path directory, String prefix, String suffix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      var numbered = new ArrayList<Path>();
+      files.filter(file -> {
+            var name = file.getFileName().toString();
+            return name.startsWith(prefix) && name.endsWith(suffix) && name.length() == prefix.length() + 6 + suffix.length();
+          })
+          .sorted()
+          .forEach(numbered::add);
+      return numbered;
+    }
+  }
+
+  private static int number(Path file, String prefix, String suffix) {
+    var name = file.getFileName().toString();
+    return Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length()));
+  }
+}
@@ -0,0 +1,58 @@
+package com.fulfilment.application.monolith.warehouses.adapters.embedded;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import java.time.LocalDateTime;
+
+// a stored warehouse: immutable, so that readers can be handed the current row without any lock
+final class WarehouseRow {
+
+  final String businessUnitCode;
+  final String location;
+  final Integer capacity;
+  final Integer stock;
+  final LocalDateTime createdAt;
+  final LocalDateTime archivedAt;
+  final long version;
+
+  WarehouseRow(String businessUnitCode, String location, Integer capacity, Integer stock, LocalDateTime createdAt,
+      LocalDateTime archivedAt, long version) {
+    this.businessUnitCode = businessUnitCode;
+    this.location = location;
+    this.capacity = capacity;
+    this.stock = stock;
+    this.createdAt = createdAt;
+    this.archivedAt = archivedAt;
+    this.version = version;
+  }
+
+  static WarehouseRow created(Warehouse warehouse) {
+    return new WarehouseRow(warehouse.businessUnitCode, warehouse.location, warehouse.capacity, warehouse.stock,
+        warehouse.createdAt, null, 0);
+  }
+
+  WarehouseRow archived(LocalDateTime at, long newVersion) {
+    return new WarehouseRow(businessUnitCode, location, capacity, stock, createdAt, at, newVersion);
+  }
+
+  // the same stored warehouse, whatever happened to it since
+  boolean isSameWarehouseAs(WarehouseRow other) {
+    return businessUnitCode.equals(other.businessUnitCode) && createdAt.equals(other.createdAt);
+  }
+
+  // what isSameWarehouseAs compares, as a key
+  String storedKey() {
+    return businessUnitCode + '@' + createdAt;
+  }
+
+  Warehouse toWarehouse() {
+    var warehouse = new Warehouse();
+    warehouse.businessUnitCode = businessUnitCode;
+    warehouse.location = location;
+    warehouse.capacity = capacity;
+    warehouse.stock = stock;
+    warehouse.createdAt = createdAt;
+    warehouse.archivedAt = archivedAt;
+    warehouse.version = version;
+    return warehouse;
+  }
+}
@@ -0,0 +1,17 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import jakarta.enterprise.context.RequestScoped;
+import jakarta.ws.rs.core.EntityTag;
+
+/**
+ * The validator of the warehouse answered by the current request, and whether the client already has it. The
+ * generated {@code WarehouseResource} methods return beans, so {@link WarehouseEntityTagFilter} turns this into the
+ * {@code ETag} header and the {@code 304}.
+ */
+@RequestScoped
+class ConditionalWarehouseResponse {
+
+  EntityTag entityTag;
+
+  boolean notModified;
+}
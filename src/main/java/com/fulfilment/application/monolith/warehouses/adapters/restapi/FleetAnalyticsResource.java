@@ -0,0 +1,40 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.errors.ApiException;
+import com.fulfilment.application.monolith.warehouses.analytics.FillLevelReport;
+import com.fulfilment.application.monolith.warehouses.analytics.FleetColumns;
+import com.fulfilment.application.monolith.warehouses.analytics.FleetUtilisation;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+
+// aggregates over the active warehouses, computed in memory from FleetColumns without touching the database
+@Path("fleet")
+@ApplicationScoped
+@Produces("application/json")
+public class FleetAnalyticsResource {
+
+  private static final int MAX_LISTED = 1000;
+
+  @Inject FleetColumns fleetColumns;
+
+  @GET
+  @Path("utilisation")
+  public FleetUtilisation utilisation() {
+    return fleetColumns.utilisation();
+  }
+
+  @GET
+  @Path("above-fill")
+  public FillLevelReport aboveFill(@QueryParam("fill") @DefaultValue("0.9") double fill,
+      @QueryParam("limit") @DefaultValue("100") int limit) {
+    if (!(fill >= 0)) {
+      throw new ApiException("fill must be a share of the capacity, 0 or more.", 400);
+    }
+    return fleetColumns.aboveFill(fill, Math.max(0, Math.min(limit, MAX_LISTED)));
+  }
+}
@@ -0,0 +1,37 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.errors.ApiException;
+import com.fulfilment.application.monolith.execution.BoundedByConnectionPool;
+import com.fulfilment.application.monolith.warehouses.placement.FreeCapacityIndex;
+import com.fulfilment.application.monolith.warehouses.placement.LocationHeadroom;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import java.util.List;
+
+// GET /placement?capacity=N: the locations a new warehouse of capacity N can go to, so that planners need not probe
+// them with POST /warehouse
+@Path("placement")
+@ApplicationScoped
+@Produces("application/json")
+public class PlacementResource {
+
+  private static final int MAX_LIMIT = 100;
+
+  @Inject FreeCapacityIndex freeCapacityIndex;
+
+  @GET
+  // a stale index is refreshed from the database within the request, and planners call this on every keystroke
+  @BoundedByConnectionPool
+  public List<LocationHeadroom> recommend(@QueryParam("capacity") Integer capacity,
+      @QueryParam("limit") @DefaultValue("10") int limit) {
+    if (capacity == null || capacity < 0) {
+      throw new ApiException("capacity must be given, 0 or more.", 400);
+    }
+    return freeCapacityIndex.locationsFor(capacity, Math.max(0, Math.min(limit, MAX_LIMIT)));
+  }
+}
@@ -0,0 +1,151 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.errors.ApiException;
+import com.fulfilment.application.monolith.execution.BoundedByConnectionPool;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchCreateWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.ReactiveWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.ReactiveWarehouseStore;
+import com.fulfilment.application.monolith.warehouses.mapper.WarehouseMapper;
+import com.warehouse.api.beans.Warehouse;
+import com.warehouse.api.beans.WarehouseBatchResult;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * The endpoints of {@code warehouse-openapi.yaml} served on the event loop, through the {@link ReactiveWarehouseStore},
+ * when the application is built with {@code warehouse.api.mode=reactive}. It replaces {@link WarehouseResourceImpl},
+ * whose generated interface only allows blocking signatures.
+ *
+ * <p>The batch create and the export stay blocking: they run the Hibernate implementation on a worker thread.
+ */
+@Path("/warehouse")
+@IfBuildProperty(name = "warehouse.api.mode", stringValue = "reactive")
+public class ReactiveWarehouseResource {
+
+  @Inject ReactiveWarehouseStore warehouseStore;
+  @Inject ReactiveWarehouseOperation warehouseOperation;
+  @Inject BatchCreateWarehouseOperation batchCreateWarehouseOperation;
+  @Inject WarehouseExport warehouseExport;
+
+  @ConfigProperty(name = "warehouse.list.page-size", defaultValue = "100")
+  int defaultPageSize;
+
+  @ConfigProperty(name = "warehouse.list.max-page-size", defaultValue = "1000")
+  int maxPageSize;
+
+  @GET
+  @Produces("application/json")
+  public Uni<List<Warehouse>> listAllWarehousesUnits(@QueryParam("after") String after,
+      @QueryParam("limit") Integer limit) {
+    var pageSize = WarehouseResponses.pageSize(limit, defaultPageSize, maxPageSize);
+    return warehouseStore.getAllAfter(after, pageSize)
+        .map(warehouses -> warehouses.stream().map(WarehouseResponses::toWarehouseResponse).toList());
+  }
+
+  @POST
+  @Produces("application/json")
+  @Consumes("application/json")
+  public Uni<Response> createANewWarehouseUnit(Warehouse data, @Context UriInfo uriInfo) {
+    requireBody(data);
+    return warehouseOperation.create(WarehouseMapper.INSTANCE.pojoWarehouseToWarehouse(data))
+        .map(persistedWarehouse -> persistedWarehouse.isRight()
+            ? Response.created(uriInfo.getAbsolutePathBuilder().path(persistedWarehouse.get().businessUnitCode).build()).build()
+            : WarehouseResponses.rejected(persistedWarehouse.getLeft()));
+  }
+
+  @Path("/export")
+  @GET
+  @Produces("application/json")
+  @Blocking
+  @BoundedByConnectionPool
+  public Response streamAllWarehousesUnits() {
+    return Response.ok(warehouseExport.allActiveWarehouses()).build();
+  }
+
+  @Path("/batch")
+  @POST
+  @Produces("application/json")
+  @Consumes("application/json")
+  @Blocking
+  @BoundedByConnectionPool
+  public List<WarehouseBatchResult> createManyWarehouseUnits(List<Warehouse> data) {
+    if (data == null) {
+      throw ApiException.unprocessable("Warehouses were not set on request.");
+    }
+    var outcomes = batchCreateWarehouseOperation.createAll(data.stream().map(WarehouseMapper.INSTANCE::pojoWarehouseToWarehouse).toList());
+    return WarehouseResponses.toBatchResults(data, outcomes);
+  }
+
+  @Path("/{id}")
+  @GET
+  @Produces("application/json")
+  public Uni<Response> getAWarehouseUnitByID(@PathParam("id") String id, @Context Request request) {
+    return warehouseStore.findByBusinessUnitCode(id)
+        .onItem().ifNull().failWith(() -> ApiException.notFound("Warehouse with id of " + id + " does not exist."))
+        .map(warehouse -> {
+          var entityTag = WarehouseEntityTags.of(warehouse.createdAt, warehouse.version);
+          var notModified = request.evaluatePreconditions(entityTag);
+          if (notModified != null) {
+            return notModified.build();
+          }
+          return Response.ok(WarehouseMapper.INSTANCE.warehouseToPojoWarehouse(warehouse)).tag(entityTag).build();
+        });
+  }
+
+  @Path("/{id}")
+  @DELETE
+  public Uni<Void> archiveAWarehouseUnitByID(@PathParam("id") String id) {
+    return warehouseOperation.archive(id)
+        .onFailure(OptimisticLockException.class).transform(e -> conflict(id))
+        .map(archived -> {
+          if (!archived) {
+            throw ApiException.notFound("Warehouse with id of " + id + " does not exist.");
+          }
+          return null;
+        });
+  }
+
+  @Path("/{businessUnitCode}/replacement")
+  @POST
+  @Produces("application/json")
+  @Consumes("application/json")
+  public Uni<Response> replaceTheCurrentActiveWarehouse(@PathParam("businessUnitCode") String businessUnitCode,
+      Warehouse data) {
+    requireBody(data);
+    data.setBusinessUnitCode(businessUnitCode);
+    return warehouseOperation.replace(WarehouseMapper.INSTANCE.pojoWarehouseToWarehouse(data))
+        .onFailure(OptimisticLockException.class).transform(e -> conflict(businessUnitCode))
+        .map(newWarehouse -> newWarehouse.isRight()
+            ? Response.ok(WarehouseMapper.INSTANCE.warehouseToPojoWarehouse(newWarehouse.get())).build()
+            : WarehouseResponses.rejected(newWarehouse.getLeft()));
+  }
+
+  private static void requireBody(Warehouse data) {
+    if (data == null) {
+      throw ApiException.unprocessable("Warehouse was not set on request.");
+    }
+  }
+
+  private static ApiException conflict(String id) {
+    // still conflicting after the retries of the use case
+    return ApiException.conflict("Warehouse with id of " + id + " was changed concurrently.");
+  }
+}
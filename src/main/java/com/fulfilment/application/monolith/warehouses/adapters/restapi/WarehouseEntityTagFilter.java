@@ -0,0 +1,26 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.Provider;
+
+@Provider
+public class WarehouseEntityTagFilter implements ContainerResponseFilter {
+
+  @Inject ConditionalWarehouseResponse conditionalResponse;
+
+  @Override
+  public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+    if (conditionalResponse.entityTag == null || responseContext.getStatus() >= 300) {
+      return;
+    }
+    responseContext.getHeaders().putSingle(HttpHeaders.ETAG, conditionalResponse.entityTag);
+    if (conditionalResponse.notModified) {
+      responseContext.setStatus(304);
+      responseContext.setEntity(null);
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import jakarta.ws.rs.core.EntityTag;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// strong validator of a warehouse: its creation time tells a replacement apart, its version any other change
+final class WarehouseEntityTags {
+
+  private WarehouseEntityTags() {}
+
+  static EntityTag of(LocalDateTime createdAt, Long version) {
+    long createdAtMicros = createdAt == null
+        ? 0
+        : createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + createdAt.getNano() / 1_000;
+    return new EntityTag(Long.toHexString(createdAtMicros) + "-" + (version == null ? 0 : version));
+  }
+}
@@ -0,0 +1,39 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fulfilment.application.monolith.execution.ConnectionPoolBulkhead;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseReadModel;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// GET /warehouse/export: every active warehouse written as a JSON array while it is read
+@ApplicationScoped
+class WarehouseExport {
+
+  @Inject WarehouseReadModel warehouseReadModel;
+  @Inject ObjectMapper objectMapper;
+  @Inject ConnectionPoolBulkhead bulkhead;
+
+  StreamingOutput allActiveWarehouses() {
+    // the rows are read and written when the body is sent, so the transaction is opened there
+    return bulkhead.bounded(output -> QuarkusTransaction.requiringNew().run(() -> writeAllWarehouses(output)));
+  }
+
+  private void writeAllWarehouses(OutputStream output) {
+    try (var warehouses = warehouseReadModel.streamApiWarehouses();
+        var generator = objectMapper.getFactory().createGenerator(output)) {
+      generator.writeStartArray();
+      for (var iterator = warehouses.iterator(); iterator.hasNext(); ) {
+        objectMapper.writeValue(generator, iterator.next());
+      }
+      generator.writeEndArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.errors.ApiException;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+
+/**
+ * Carries the 400 response of a rejected command out of the endpoints whose generated signature returns a bean.
+ * Being stackless and already holding its body, the error mapper answers it as is.
+ */
+class WarehouseRejectedException extends ApiException {
+
+  WarehouseRejectedException(WarehouseError error) {
+    super(WarehouseResponses.rejected(error));
+  }
+}
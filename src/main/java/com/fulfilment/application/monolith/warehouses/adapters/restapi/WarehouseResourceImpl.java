@@ -1,37 +1,72 @@
 package com.fulfilment.application.monolith.warehouses.adapters.restapi;
 
-import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.errors.ApiException;
+import com.fulfilment.application.monolith.execution.BoundedByConnectionPool;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchCreateWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.CreateWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseReadModel;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.fulfilment.application.monolith.warehouses.domain.usecases.ArchiveWarehouseUseCase;
 import com.fulfilment.application.monolith.warehouses.domain.usecases.ReplaceWarehouseUseCase;
 import com.fulfilment.application.monolith.warehouses.mapper.WarehouseMapper;
 import com.warehouse.api.WarehouseResource;
 import com.warehouse.api.beans.Warehouse;
+import com.warehouse.api.beans.WarehouseBatchResult;
+import io.quarkus.arc.properties.UnlessBuildProperty;
+import io.vavr.control.Either;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.validation.constraints.NotNull;
-import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
 import jakarta.ws.rs.core.UriInfo;
 
 import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 @RequestScoped
+@UnlessBuildProperty(name = "warehouse.api.mode", stringValue = "reactive", enableIfMissing = true)
+@BoundedByConnectionPool
 public class WarehouseResourceImpl implements WarehouseResource {
 
-  @Inject private WarehouseRepository warehouseRepository;
+  @Inject private WarehouseStore warehouseStore;
+  @Inject private WarehouseReadModel warehouseReadModel;
   @Inject private CreateWarehouseOperation createWarehouseOperation;
+  @Inject private BatchCreateWarehouseOperation batchCreateWarehouseOperation;
   @Inject private ArchiveWarehouseUseCase archiveWarehouseUseCase;
   @Inject private ReplaceWarehouseUseCase replaceWarehouseUseCase;
+  @Inject private WarehouseExport warehouseExport;
+  @Inject ConditionalWarehouseResponse conditionalResponse;
+
+  @ConfigProperty(name = "warehouse.list.page-size", defaultValue = "100")
+  int defaultPageSize;
+
+  @ConfigProperty(name = "warehouse.list.max-page-size", defaultValue = "1000")
+  int maxPageSize;
 
   @Context
   private UriInfo uriInfo;
 
+  @Context
+  private HttpHeaders httpHeaders;
+
+  @Context
+  private Request request;
+
+  @Override
+  public List<Warehouse> listAllWarehousesUnits(String after, Integer limit) {
+    var pageSize = WarehouseResponses.pageSize(limit, defaultPageSize, maxPageSize);
+    return warehouseReadModel.getApiWarehousesAfter(after, pageSize);
+  }
+
   @Override
-  public List<Warehouse> listAllWarehousesUnits() {
-    return warehouseRepository.getAll().stream().map(this::toWarehouseResponse).toList();
+  public Response streamAllWarehousesUnits() {
+    return Response.ok(warehouseExport.allActiveWarehouses()).build();
   }
 
   @Override
@@ -41,45 +76,61 @@ public class WarehouseResourceImpl implements WarehouseResource {
       UriBuilder builder = uriInfo.getAbsolutePathBuilder().path(persistedWarehouse.get().businessUnitCode);
       return Response.created(builder.build()).build();
     } else {
-      throw new WebApplicationException(persistedWarehouse.getLeft(), 400);
+      return WarehouseResponses.rejected(persistedWarehouse.getLeft());
     }
   }
 
+  @Override
+  public List<WarehouseBatchResult> createManyWarehouseUnits(@NotNull List<Warehouse> data) {
+    var outcomes = batchCreateWarehouseOperation.createAll(data.stream().map(WarehouseMapper.INSTANCE::pojoWarehouseToWarehouse).toList());
+    return WarehouseResponses.toBatchResults(data, outcomes);
+  }
+
   @Override
   public Warehouse getAWarehouseUnitByID(String id) {
-   var warehouse = warehouseRepository.findByBusinessUnitCode(id);
-   if (warehouse != null) {
-      return WarehouseMapper.INSTANCE.warehouseToPojoWarehouse(warehouse);
-   } else {
-     throw new WebApplicationException("Warehouse with id of " + id + " does not exist.", 404);
-   }
+    if (httpHeaders.getHeaderString(HttpHeaders.IF_NONE_MATCH) != null) {
+      // polling clients mostly hold the current version: compare it without loading the warehouse
+      var revision = warehouseStore.findRevisionByBusinessUnitCode(id)
+          .orElseThrow(() -> ApiException.notFound("Warehouse with id of " + id + " does not exist."));
+      conditionalResponse.entityTag = WarehouseEntityTags.of(revision.createdAt, revision.version);
+      if (request.evaluatePreconditions(conditionalResponse.entityTag) != null) {
+        conditionalResponse.notModified = true;
+        return null;
+      }
+    }
+    var warehouse = warehouseStore.findByBusinessUnitCode(id)
+        .orElseThrow(() -> ApiException.notFound("Warehouse with id of " + id + " does not exist."));
+    conditionalResponse.entityTag = WarehouseEntityTags.of(warehouse.createdAt, warehouse.version);
+    return WarehouseMapper.INSTANCE.warehouseToPojoWarehouse(warehouse);
   }
 
   @Override
   public void archiveAWarehouseUnitByID(String id) {
-    archiveWarehouseUseCase.archive(warehouseRepository.findByBusinessUnitCode(id));
+    var warehouse = warehouseStore.findByBusinessUnitCode(id)
+        .orElseThrow(() -> ApiException.notFound("Warehouse with id of " + id + " does not exist."));
+    try {
+      archiveWarehouseUseCase.archive(warehouse);
+    } catch (OptimisticLockException e) {
+      // replaced or archived since it was read: archiving it now would act on a warehouse the caller has not seen
+      throw ApiException.conflict("Warehouse with id of " + id + " was changed concurrently.");
+    }
   }
 
   @Override
   public Warehouse replaceTheCurrentActiveWarehouse(
           String businessUnitCode, @NotNull Warehouse data) {
     data.setBusinessUnitCode(businessUnitCode);
-    var newWarehouse = replaceWarehouseUseCase.replace(WarehouseMapper.INSTANCE.pojoWarehouseToWarehouse(data));
+    Either<WarehouseError, com.fulfilment.application.monolith.warehouses.domain.models.Warehouse> newWarehouse;
+    try {
+      newWarehouse = replaceWarehouseUseCase.replace(WarehouseMapper.INSTANCE.pojoWarehouseToWarehouse(data));
+    } catch (OptimisticLockException e) {
+      // still conflicting after the retries of the use case
+      throw ApiException.conflict("Warehouse with id of " + businessUnitCode + " was changed concurrently.");
+    }
     if (newWarehouse.isRight()) {
       return WarehouseMapper.INSTANCE.warehouseToPojoWarehouse(newWarehouse.get());
     } else {
-      throw new WebApplicationException(newWarehouse.getLeft(), 400);
+      throw new WarehouseRejectedException(newWarehouse.getLeft());
     }
   }
-
-  private Warehouse toWarehouseResponse(
-          com.fulfilment.application.monolith.warehouses.domain.models.Warehouse warehouse) {
-    var response = new Warehouse();
-    response.setBusinessUnitCode(warehouse.businessUnitCode);
-    response.setLocation(warehouse.location);
-    response.setCapacity(warehouse.capacity);
-    response.setStock(warehouse.stock);
-
-    return response;
-  }
 }
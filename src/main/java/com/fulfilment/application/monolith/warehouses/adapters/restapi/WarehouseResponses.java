@@ -0,0 +1,66 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.errors.ApiException;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import com.warehouse.api.beans.ValidationError;
+import com.warehouse.api.beans.Warehouse;
+import com.warehouse.api.beans.WarehouseBatchResult;
+import io.vavr.control.Either;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.List;
+
+// the response bodies shared by the blocking and the reactive warehouse resources
+final class WarehouseResponses {
+
+  private WarehouseResponses() {}
+
+  // the page size asked for with limit, at most maxPageSize; the specification declares its minimum of 1
+  static int pageSize(Integer limit, int defaultPageSize, int maxPageSize) {
+    if (limit == null) {
+      return defaultPageSize;
+    }
+    if (limit < 1) {
+      throw new ApiException("limit must be 1 or more.", 400);
+    }
+    return Math.min(limit, maxPageSize);
+  }
+
+  static Warehouse toWarehouseResponse(
+          com.fulfilment.application.monolith.warehouses.domain.models.Warehouse warehouse) {
+    var response = new Warehouse();
+    response.setBusinessUnitCode(warehouse.businessUnitCode);
+    response.setLocation(warehouse.location);
+    response.setCapacity(warehouse.capacity);
+    response.setStock(warehouse.stock);
+
+    return response;
+  }
+
+  static List<WarehouseBatchResult> toBatchResults(List<Warehouse> data,
+      List<Either<WarehouseError, com.fulfilment.application.monolith.warehouses.domain.models.Warehouse>> outcomes) {
+    var results = new ArrayList<WarehouseBatchResult>(outcomes.size());
+    for (int i = 0; i < outcomes.size(); i++) {
+      var result = new WarehouseBatchResult();
+      result.setBusinessUnitCode(data.get(i).getBusinessUnitCode());
+      result.setCreated(outcomes.get(i).isRight());
+      if (outcomes.get(i).isLeft()) {
+        var error = outcomes.get(i).getLeft();
+        result.setError(error.message());
+        result.setErrorCode(error.code.name());
+      }
+      results.add(result);
+    }
+    return results;
+  }
+
+  // built as a plain response: a rejected command is an expected outcome, not worth an exception
+  static Response rejected(WarehouseError error) {
+    var body = new ValidationError();
+    body.setCode(400);
+    body.setError(error.message());
+    body.setErrorCode(error.code.name());
+    return Response.status(400).type(MediaType.APPLICATION_JSON_TYPE).entity(body).build();
+  }
+}
@@ -0,0 +1,19 @@
+package com.fulfilment.application.monolith.warehouses.analytics;
+
+import java.util.List;
+
+// the active warehouses filled above a share of their capacity: all of them counted, some of them listed
+public class FillLevelReport {
+
+  public final double fill;
+
+  public final long count;
+
+  public final List<String> businessUnitCodes;
+
+  public FillLevelReport(double fill, long count, List<String> businessUnitCodes) {
+    this.fill = fill;
+    this.count = count;
+    this.businessUnitCodes = businessUnitCodes;
+  }
+}
@@ -0,0 +1,256 @@
+package com.fulfilment.application.monolith.warehouses.analytics;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+import org.jboss.logging.Logger;
+
+/**
+ * The active warehouses of the fleet as primitive columns, for questions about all of them at once.
+ *
+ * <p>Capacity and stock are {@code int} arrays and the location a dictionary-encoded {@code int}, all indexed by the
+ * same dense slot, so an aggregate is a loop over arrays rather than over {@link Warehouse} objects and boxed
+ * integers. An archived warehouse hands its slot to the last one.
+ *
+ * <p>The columns are loaded from the store at startup, then follow the {@link WarehouseChanges} of the use cases once
+ * their transactions have committed. They are also rebuilt periodically: that picks up the changes made by other
+ * instances and repairs the rare change observed out of order. Aggregates share a read lock, changes take the write
+ * lock for the few array writes they need.
+ */
+@ApplicationScoped
+public class FleetColumns {
+
+  private static final Logger LOGGER = Logger.getLogger(FleetColumns.class.getName());
+
+  // below this many warehouses a parallel stream costs more than it saves
+  static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  private final WarehouseStore warehouseStore;
+  private final StampedLock lock = new StampedLock();
+
+  // guarded by lock
+  private Columns columns = new Columns();
+  // guarded by lock; the changes observed while a rebuild reads the store, applied again to what it read
+  private List<WarehouseChanges> changesDuringRebuild;
+
+  @Inject
+  public FleetColumns(WarehouseStore warehouseStore) {
+    this.warehouseStore = warehouseStore;
+  }
+
+  void load(@Observes StartupEvent startup) {
+    try {
+      rebuild();
+    } catch (RuntimeException e) {
+      // the analytics are not worth failing the startup for: they stay empty until the next rebuild
+      LOGGER.error("Cannot load the fleet columns", e);
+    }
+  }
+
+  @Scheduled(every = "${warehouse.analytics.rebuild-interval:15m}", delayed = "${warehouse.analytics.rebuild-interval:15m}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  synchronized void rebuild() {
+    long stamp = lock.writeLock();
+    try {
+      changesDuringRebuild = new ArrayList<>();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    var rebuilt = new Columns();
+    boolean read = false;
+    try {
+      QuarkusTransaction.requiringNew().run(() -> {
+        try (var warehouses = warehouseStore.streamAllActive()) {
+          warehouses.forEach(rebuilt::put);
+        }
+      });
+      read = true;
+    } finally {
+      stamp = lock.writeLock();
+      try {
+        if (read) {
+          // a change the read already saw does nothing: put overwrites, remove checks the creation time
+          changesDuringRebuild.forEach(rebuilt::apply);
+          columns = rebuilt;
+        }
+        changesDuringRebuild = null;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+    LOGGER.debugf("Fleet columns rebuilt with %d active warehouses", rebuilt.size);
+  }
+
+  void onCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) WarehouseChanges changes) {
+    apply(changes);
+  }
+
+  void apply(WarehouseChanges changes) {
+    long stamp = lock.writeLock();
+    try {
+      columns.apply(changes);
+      if (changesDuringRebuild != null) {
+        changesDuringRebuild.add(changes);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /** Number of warehouses, capacity and stock of the whole fleet and of every location, in one pass. */
+  public FleetUtilisation utilisation() {
+    long stamp = lock.readLock();
+    try {
+      var current = columns;
+      int locations = current.locationNames.size();
+      var warehouses = new long[locations];
+      var capacities = new long[locations];
+      var stocks = new long[locations];
+      int[] capacity = current.capacity;
+      int[] stock = current.stock;
+      int[] location = current.location;
+      for (int slot = 0, size = current.size; slot < size; slot++) {
+        int id = location[slot];
+        warehouses[id]++;
+        capacities[id] += capacity[slot];
+        stocks[id] += stock[slot];
+      }
+      var byLocation = new ArrayList<LocationUtilisation>(locations);
+      long totalCapacity = 0;
+      long totalStock = 0;
+      for (int id = 0; id < locations; id++) {
+        totalCapacity += capacities[id];
+        totalStock += stocks[id];
+        var name = current.locationNames.get(id);
+        if (warehouses[id] > 0 && name != null) {
+          byLocation.add(new LocationUtilisation(name, warehouses[id], capacities[id], stocks[id]));
+        }
+      }
+      byLocation.sort((a, b) -> a.location.compareTo(b.location));
+      return new FleetUtilisation(current.size, totalCapacity, totalStock, byLocation);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * The warehouses whose stock is more than {@code fill} of their capacity: how many, and the business unit codes of
+   * up to {@code limit} of them, in no particular order.
+   */
+  public FillLevelReport aboveFill(double fill, int limit) {
+    long stamp = lock.readLock();
+    try {
+      var current = columns;
+      int[] capacity = current.capacity;
+      int[] stock = current.stock;
+      var slots = IntStream.range(0, current.size);
+      if (current.size >= PARALLEL_THRESHOLD) {
+        slots = slots.parallel();
+      }
+      // a warehouse without capacity is not filled at all, even with stock
+      int[] matching = slots.filter(slot -> capacity[slot] > 0 && stock[slot] > fill * capacity[slot]).toArray();
+      var businessUnitCodes = new ArrayList<String>(Math.min(limit, matching.length));
+      for (int i = 0; i < matching.length && i < limit; i++) {
+        businessUnitCodes.add(current.businessUnitCode[matching[i]]);
+      }
+      return new FillLevelReport(fill, matching.length, businessUnitCodes);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // not thread-safe: guarded by the lock of FleetColumns, or not shared yet
+  private static final class Columns {
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Map<String, Integer> locationIds = new HashMap<>();
+    private final List<String> locationNames = new ArrayList<>();
+
+    private int size;
+    private int[] capacity = new int[16];
+    private int[] stock = new int[16];
+    private int[] location = new int[16];
+    private String[] businessUnitCode = new String[16];
+    // tells a warehouse from its replacement, which has the same business unit code
+    private LocalDateTime[] createdAt = new LocalDateTime[16];
+
+    void apply(WarehouseChanges changes) {
+      changes.archived.forEach(this::remove);
+      changes.created.forEach(this::put);
+    }
+
+    void put(Warehouse warehouse) {
+      var slot = slots.get(warehouse.businessUnitCode);
+      if (slot == null) {
+        if (size == capacity.length) {
+          grow();
+        }
+        slot = size++;
+        slots.put(warehouse.businessUnitCode, slot);
+      }
+      capacity[slot] = warehouse.capacity == null ? 0 : warehouse.capacity;
+      stock[slot] = warehouse.stock == null ? 0 : warehouse.stock;
+      location[slot] = locationId(warehouse.location);
+      businessUnitCode[slot] = warehouse.businessUnitCode;
+      createdAt[slot] = columnPrecision(warehouse.createdAt);
+    }
+
+    void remove(Warehouse warehouse) {
+      var slot = slots.get(warehouse.businessUnitCode);
+      if (slot == null || !Objects.equals(createdAt[slot], columnPrecision(warehouse.createdAt))) {
+        // already replaced, or never seen
+        return;
+      }
+      slots.remove(warehouse.businessUnitCode);
+      int last = --size;
+      if (slot != last) {
+        capacity[slot] = capacity[last];
+        stock[slot] = stock[last];
+        location[slot] = location[last];
+        businessUnitCode[slot] = businessUnitCode[last];
+        createdAt[slot] = createdAt[last];
+        slots.put(businessUnitCode[slot], slot);
+      }
+      businessUnitCode[last] = null;
+      createdAt[last] = null;
+    }
+
+    // the stores create warehouses with the precision of the timestamp column; this also holds for a creation time
+    // that was not truncated, compared to the same warehouse read back
+    private static LocalDateTime columnPrecision(LocalDateTime createdAt) {
+      return createdAt == null ? null : createdAt.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private int locationId(String name) {
+      return locationIds.computeIfAbsent(name, added -> {
+        locationNames.add(added);
+        return locationNames.size() - 1;
+      });
+    }
+
+    private void grow() {
+      int length = capacity.length << 1;
+      capacity = Arrays.copyOf(capacity, length);
+      stock = Arrays.copyOf(stock, length);
+      location = Arrays.copyOf(location, length);
+      businessUnitCode = Arrays.copyOf(businessUnitCode, length);
+      createdAt = Arrays.copyOf(createdAt, length);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.fulfilment.application.monolith.warehouses.analytics;
+
+import java.util.List;
+
+// the active warehouses of the whole fleet summed up, and of each location ordered by identifier
+public class FleetUtilisation {
+
+  public final long warehouses;
+
+  public final long totalCapacity;
+
+  public final long totalStock;
+
+  // total stock over total capacity, 0 without capacity
+  public final double utilisation;
+
+  public final List<LocationUtilisation> locations;
+
+  public FleetUtilisation(long warehouses, long totalCapacity, long totalStock, List<LocationUtilisation> locations) {
+    this.warehouses = warehouses;
+    this.totalCapacity = totalCapacity;
+    this.totalStock = totalStock;
+    this.utilisation = totalCapacity == 0 ? 0 : (double) totalStock / totalCapacity;
+    this.locations = locations;
+  }
+}
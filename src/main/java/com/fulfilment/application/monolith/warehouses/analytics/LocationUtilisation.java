@@ -0,0 +1,24 @@
+package com.fulfilment.application.monolith.warehouses.analytics;
+
+// the active warehouses of one location, summed up
+public class LocationUtilisation {
+
+  public final String location;
+
+  public final long warehouses;
+
+  public final long totalCapacity;
+
+  public final long totalStock;
+
+  // total stock over total capacity, 0 without capacity
+  public final double utilisation;
+
+  public LocationUtilisation(String location, long warehouses, long totalCapacity, long totalStock) {
+    this.location = location;
+    this.warehouses = warehouses;
+    this.totalCapacity = totalCapacity;
+    this.totalStock = totalStock;
+    this.utilisation = totalCapacity == 0 ? 0 : (double) totalStock / totalCapacity;
+  }
+}
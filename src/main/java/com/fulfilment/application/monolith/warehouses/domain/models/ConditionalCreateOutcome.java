@@ -0,0 +1,19 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+// what a conditional create found when it ran: whether it inserted the warehouse, and if not, what stopped it
+public class ConditionalCreateOutcome {
+
+  public final boolean created;
+
+  // an active warehouse already had the business unit code
+  public final boolean alreadyExists;
+
+  // the location before the insert
+  public final LocationOccupancy occupancy;
+
+  public ConditionalCreateOutcome(boolean created, boolean alreadyExists, LocationOccupancy occupancy) {
+    this.created = created;
+    this.alreadyExists = alreadyExists;
+    this.occupancy = occupancy;
+  }
+}
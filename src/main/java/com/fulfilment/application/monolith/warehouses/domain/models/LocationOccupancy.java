@@ -0,0 +1,21 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+public class LocationOccupancy {
+
+  public static final LocationOccupancy EMPTY = new LocationOccupancy(0, 0, 0);
+
+  // number of active warehouses in the location
+  public final long numberOfWarehouses;
+
+  // sum of the capacities of the active warehouses in the location
+  public final long totalCapacity;
+
+  // sum of the stock of the active warehouses in the location
+  public final long totalStock;
+
+  public LocationOccupancy(long numberOfWarehouses, long totalCapacity, long totalStock) {
+    this.numberOfWarehouses = numberOfWarehouses;
+    this.totalCapacity = totalCapacity;
+    this.totalStock = totalStock;
+  }
+}
@@ -16,4 +16,7 @@ public class Warehouse {
   public LocalDateTime createdAt;
 
   public LocalDateTime archivedAt;
+
+  // version of the stored row this warehouse was read from, null when it was not read from the store
+  public Long version;
 }
@@ -0,0 +1,29 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+import java.util.List;
+
+// what a use case changed in one transaction, fired as a CDI event and observed once the transaction has committed:
+// the warehouses archived, then those created
+public class WarehouseChanges {
+
+  public final List<Warehouse> archived;
+
+  public final List<Warehouse> created;
+
+  public WarehouseChanges(List<Warehouse> archived, List<Warehouse> created) {
+    this.archived = archived;
+    this.created = created;
+  }
+
+  public static WarehouseChanges created(List<Warehouse> warehouses) {
+    return new WarehouseChanges(List.of(), warehouses);
+  }
+
+  public static WarehouseChanges archived(Warehouse warehouse) {
+    return new WarehouseChanges(List.of(warehouse), List.of());
+  }
+
+  public static WarehouseChanges replaced(Warehouse oldWarehouse, Warehouse newWarehouse) {
+    return new WarehouseChanges(List.of(oldWarehouse), List.of(newWarehouse));
+  }
+}
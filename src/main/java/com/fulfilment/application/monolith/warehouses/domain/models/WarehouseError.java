@@ -0,0 +1,103 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+import java.util.Objects;
+
+/**
+ * Why a warehouse command was rejected: a code clients can switch on, and the values its message is made of.
+ *
+ * <p>The message is only rendered when asked for, and the errors without values are shared constants, so rejecting a
+ * command builds no string and, most of the time, allocates nothing.
+ */
+public final class WarehouseError {
+
+  public enum Code {
+    STOCK_GREATER_THAN_CAPACITY,
+    LOCATION_NOT_FOUND,
+    ALREADY_EXISTS,
+    TO_REPLACE_NOT_FOUND,
+    STOCK_MISMATCH,
+    MAX_NUMBER_OF_WAREHOUSES_REACHED,
+    MAX_CAPACITY_REACHED,
+    CANNOT_ACCOMMODATE_STOCK
+  }
+
+  public static final WarehouseError STOCK_GREATER_THAN_CAPACITY = new WarehouseError(Code.STOCK_GREATER_THAN_CAPACITY, null, 0, 0);
+  public static final WarehouseError LOCATION_NOT_FOUND = new WarehouseError(Code.LOCATION_NOT_FOUND, null, 0, 0);
+  public static final WarehouseError ALREADY_EXISTS = new WarehouseError(Code.ALREADY_EXISTS, null, 0, 0);
+  public static final WarehouseError TO_REPLACE_NOT_FOUND = new WarehouseError(Code.TO_REPLACE_NOT_FOUND, null, 0, 0);
+
+  public final Code code;
+
+  private final String location;
+  private final long first;
+  private final long second;
+
+  private WarehouseError(Code code, String location, long first, long second) {
+    this.code = code;
+    this.location = location;
+    this.first = first;
+    this.second = second;
+  }
+
+  public static WarehouseError maxNumberOfWarehousesReached(Location location) {
+    return new WarehouseError(Code.MAX_NUMBER_OF_WAREHOUSES_REACHED, location.identification, 0, 0);
+  }
+
+  public static WarehouseError maxCapacityReached(Location location) {
+    return new WarehouseError(Code.MAX_CAPACITY_REACHED, location.identification, 0, 0);
+  }
+
+  public static WarehouseError stockMismatch(int oldStock, int newStock) {
+    return new WarehouseError(Code.STOCK_MISMATCH, null, oldStock, newStock);
+  }
+
+  public static WarehouseError cannotAccommodateStock(long stock, Location location, long capacity) {
+    return new WarehouseError(Code.CANNOT_ACCOMMODATE_STOCK, location.identification, stock, capacity);
+  }
+
+  public String message() {
+    switch (code) {
+      case STOCK_GREATER_THAN_CAPACITY:
+        return "Cannot create a warehouse with stock greater than capacity";
+      case LOCATION_NOT_FOUND:
+        return "Location not found";
+      case ALREADY_EXISTS:
+        return "Warehouse already exists";
+      case TO_REPLACE_NOT_FOUND:
+        return "Warehouse to replace not found";
+      case STOCK_MISMATCH:
+        return "Stock match error old warehouse stock " + first + " but new warehouse stock " + second;
+      case MAX_NUMBER_OF_WAREHOUSES_REACHED:
+        return "Location " + location + " has reached max number of warehouses";
+      case MAX_CAPACITY_REACHED:
+        return "Location " + location + " has reached max capacity";
+      case CANNOT_ACCOMMODATE_STOCK:
+        return "Cannot accommodate the current stock level " + first + " because the new capacity for location "
+            + location + " is " + second;
+      default:
+        throw new IllegalStateException("Unknown error code " + code);
+    }
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof WarehouseError)) {
+      return false;
+    }
+    var error = (WarehouseError) other;
+    return code == error.code && first == error.first && second == error.second && Objects.equals(location, error.location);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(code, location, first, second);
+  }
+
+  @Override
+  public String toString() {
+    return code + ": " + message();
+  }
+}
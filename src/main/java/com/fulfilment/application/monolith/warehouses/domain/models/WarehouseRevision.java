@@ -0,0 +1,17 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+import java.time.LocalDateTime;
+
+// identifies the state of an active warehouse without loading it: a replacement has a later creation time, any
+// other change a higher version
+public class WarehouseRevision {
+
+  public final LocalDateTime createdAt;
+
+  public final Long version;
+
+  public WarehouseRevision(LocalDateTime createdAt, Long version) {
+    this.createdAt = createdAt;
+    this.version = version;
+  }
+}
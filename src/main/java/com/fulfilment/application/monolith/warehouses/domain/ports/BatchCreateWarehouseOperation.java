@@ -0,0 +1,11 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import io.vavr.control.Either;
+import java.util.List;
+
+public interface BatchCreateWarehouseOperation {
+  // one outcome per warehouse, in the same order as the input
+  List<Either<WarehouseError, Warehouse>> createAll(List<Warehouse> warehouses);
+}
@@ -1,8 +1,9 @@
 package com.fulfilment.application.monolith.warehouses.domain.ports;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
 import io.vavr.control.Either;
 
 public interface CreateWarehouseOperation {
-  Either<String, Warehouse> create(Warehouse warehouse);
+  Either<WarehouseError, Warehouse> create(Warehouse warehouse);
 }
@@ -0,0 +1,10 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import java.util.Collection;
+
+public interface LocationCatalogue {
+
+  // every location warehouses can be created in
+  Collection<Location> allLocations();
+}
@@ -0,0 +1,10 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import java.util.Collection;
+
+public interface LocationLock {
+
+  // blocks until the current transaction is the only writer of the given locations; released when it completes.
+  // A transaction locks all its locations in one call, later calls may only repeat them
+  void lock(Collection<String> locationIdentifiers);
+}
@@ -0,0 +1,16 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import io.smallrye.mutiny.Uni;
+import io.vavr.control.Either;
+
+public interface ReactiveWarehouseOperation {
+
+  Uni<Either<WarehouseError, Warehouse>> create(Warehouse warehouse);
+
+  Uni<Either<WarehouseError, Warehouse>> replace(Warehouse newWarehouse);
+
+  // false when there is no active warehouse with this business unit code
+  Uni<Boolean> archive(String businessUnitCode);
+}
@@ -0,0 +1,30 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import io.smallrye.mutiny.Uni;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+// non-blocking counterpart of WarehouseStore; a missing warehouse is a null item
+public interface ReactiveWarehouseStore {
+
+  // runs the work in one transaction, through the store it is given; rolled back when the returned Uni fails
+  <T> Uni<T> withTransaction(Function<ReactiveWarehouseStore, Uni<T>> work);
+
+  Uni<List<Warehouse>> getAllAfter(String buCode, int limit);
+
+  Uni<LocationOccupancy> getOccupancyByLocation(String location);
+
+  Uni<Warehouse> findByBusinessUnitCode(String buCode);
+
+  // until the end of the transaction, the only writer of the given locations
+  Uni<Void> lockLocations(Collection<String> locations);
+
+  Uni<Warehouse> create(Warehouse warehouse);
+
+  // archives the active warehouse with the business unit code of the given one, failing with an
+  // OptimisticLockException if it changed since it was read
+  Uni<Void> update(Warehouse warehouse);
+}
@@ -1,8 +1,9 @@
 package com.fulfilment.application.monolith.warehouses.domain.ports;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
 import io.vavr.control.Either;
 
 public interface ReplaceWarehouseOperation {
-  Either<String, Warehouse> replace(Warehouse warehouse);
+  Either<WarehouseError, Warehouse> replace(Warehouse warehouse);
 }
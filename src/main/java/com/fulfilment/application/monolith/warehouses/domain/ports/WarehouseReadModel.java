@@ -0,0 +1,18 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.warehouse.api.beans.Warehouse;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * The active warehouses as the read-only endpoints answer them, implemented by every warehouse store so that each can
+ * produce the response bodies its own way.
+ */
+public interface WarehouseReadModel {
+
+  // keyset page ordered by business unit code, starting right after the given one (from the first when null)
+  List<Warehouse> getApiWarehousesAfter(String buCode, int limit);
+
+  // lazily reads every active warehouse ordered by business unit code; must be closed and consumed inside a transaction
+  Stream<Warehouse> streamApiWarehouses();
+}
@@ -1,19 +1,50 @@
 package com.fulfilment.application.monolith.warehouses.domain.ports;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.ConditionalCreateOutcome;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseRevision;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface WarehouseStore {
 
   List<Warehouse> getAll();
 
+  // keyset page ordered by business unit code, starting right after the given one (from the first when null)
+  List<Warehouse> getAllAfter(String buCode, int limit);
+
+  // lazily reads every active warehouse ordered by business unit code; must be closed and consumed inside a transaction
+  Stream<Warehouse> streamAllActive();
+
   List<Warehouse> getAllByLocation(String location);
 
+  // count, total capacity and total stock of the active warehouses in a location, without loading them
+  LocationOccupancy getOccupancyByLocation(String location);
+
   Warehouse create(Warehouse warehouse);
 
+  // inserts the warehouse only if its business unit code is free and the location stays within both limits, checking
+  // and inserting at once; the location must be locked by the caller
+  ConditionalCreateOutcome createIfWithinLimits(Warehouse warehouse, int maxNumberOfWarehouses, int maxCapacity);
+
+  // persists all the warehouses in one go, letting the adapter batch the inserts
+  List<Warehouse> createAll(List<Warehouse> warehouses);
+
+  // archives the active warehouse with the business unit code of the given one
   void update(Warehouse warehouse);
 
+  // deletes the active warehouse with the business unit code of the given one, leaving no archived history
   void remove(Warehouse warehouse);
 
-  Warehouse findByBusinessUnitCode(String buCode); // I would use Optional
+  Optional<Warehouse> findByBusinessUnitCode(String buCode);
+
+  // creation time and version of the active warehouse, read without loading it
+  Optional<WarehouseRevision> findRevisionByBusinessUnitCode(String buCode);
+
+  // the subset of the given business unit codes that already belong to an active warehouse
+  Set<String> findActiveBusinessUnitCodes(Collection<String> buCodes);
 }
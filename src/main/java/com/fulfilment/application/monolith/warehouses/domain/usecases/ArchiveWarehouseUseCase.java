@@ -1,9 +1,11 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ArchiveWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 
 import java.time.LocalDateTime;
@@ -12,9 +14,11 @@ import java.time.LocalDateTime;
 public class ArchiveWarehouseUseCase implements ArchiveWarehouseOperation {
 
   private final WarehouseStore warehouseStore;
+  private final Event<WarehouseChanges> warehouseChanges;
 
-  public ArchiveWarehouseUseCase(WarehouseStore warehouseStore) {
+  public ArchiveWarehouseUseCase(WarehouseStore warehouseStore, Event<WarehouseChanges> warehouseChanges) {
     this.warehouseStore = warehouseStore;
+    this.warehouseChanges = warehouseChanges;
   }
   @Transactional
   @Override
@@ -24,5 +28,6 @@ public class ArchiveWarehouseUseCase implements ArchiveWarehouseOperation {
     }
     warehouse.archivedAt = LocalDateTime.now();
     warehouseStore.update(warehouse);
+    warehouseChanges.fire(WarehouseChanges.archived(warehouse));
   }
 }
@@ -0,0 +1,104 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchCreateWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import io.vavr.control.Either;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.transaction.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@ApplicationScoped
+public class BatchCreateWarehouseUseCase implements BatchCreateWarehouseOperation {
+
+  private final WarehouseStore warehouseStore;
+  private final LocationResolver locationResolver;
+  private final LocationLock locationLock;
+  private final Event<WarehouseChanges> warehouseChanges;
+
+  public BatchCreateWarehouseUseCase(WarehouseStore warehouseStore, LocationResolver locationResolver, LocationLock locationLock,
+      Event<WarehouseChanges> warehouseChanges) {
+    this.warehouseStore = warehouseStore;
+    this.locationResolver = locationResolver;
+    this.locationLock = locationLock;
+    this.warehouseChanges = warehouseChanges;
+  }
+
+  @Override
+  @Transactional
+  public List<Either<WarehouseError, Warehouse>> createAll(List<Warehouse> warehouses) {
+    // every known location of the batch is locked at once, before any occupancy is read
+    var locations = warehouses.stream()
+        .map(w -> w.location)
+        .filter(identifier -> identifier != null && locationResolver.resolveByIdentifier(identifier) != null)
+        .collect(Collectors.toSet());
+    if (!locations.isEmpty()) {
+      locationLock.lock(locations);
+    }
+    var existingBusinessUnitCodes = warehouseStore.findActiveBusinessUnitCodes(
+        warehouses.stream().map(w -> w.businessUnitCode).filter(Objects::nonNull).collect(Collectors.toSet()));
+    var acceptedBusinessUnitCodes = new HashSet<String>();
+    // running occupancy per location: starts from the database and grows with every accepted warehouse of the batch
+    var occupancies = new HashMap<String, LocationOccupancy>();
+
+    var outcomes = new ArrayList<Either<WarehouseError, Warehouse>>(warehouses.size());
+    var accepted = new ArrayList<Warehouse>();
+    for (Warehouse warehouse : warehouses) {
+      var outcome = validate(warehouse, existingBusinessUnitCodes, acceptedBusinessUnitCodes, occupancies);
+      if (outcome.isRight()) {
+        accepted.add(warehouse);
+      }
+      outcomes.add(outcome);
+    }
+    if (!accepted.isEmpty()) {
+      warehouseStore.createAll(accepted);
+      warehouseChanges.fire(WarehouseChanges.created(accepted));
+    }
+    return outcomes;
+  }
+
+  private Either<WarehouseError, Warehouse> validate(Warehouse warehouse, Set<String> existingBusinessUnitCodes,
+      Set<String> acceptedBusinessUnitCodes, Map<String, LocationOccupancy> occupancies) {
+    var command = new CreateCommand(warehouse) {
+      @Override
+      Location resolveLocation() {
+        return locationResolver.resolveByIdentifier(warehouse.location);
+      }
+
+      @Override
+      boolean alreadyExists() {
+        return existingBusinessUnitCodes.contains(warehouse.businessUnitCode) || acceptedBusinessUnitCodes.contains(warehouse.businessUnitCode);
+      }
+
+      @Override
+      LocationOccupancy loadOccupancy(Location location) {
+        return occupancies.computeIfAbsent(location.identification, warehouseStore::getOccupancyByLocation);
+      }
+    };
+    // the locations were locked up front
+    var error = WarehouseRules.CREATE_IN_MEMORY.firstViolation(command);
+    if (error == null) error = WarehouseRules.CREATE_LOCKED.firstViolation(command);
+    if (error != null) return Either.left(error);
+
+    var occupancy = command.occupancy();
+    occupancies.put(command.location().identification, new LocationOccupancy(
+        occupancy.numberOfWarehouses + 1, occupancy.totalCapacity + warehouse.capacity, occupancy.totalStock + warehouse.stock));
+    acceptedBusinessUnitCodes.add(warehouse.businessUnitCode);
+    return Either.right(warehouse);
+  }
+}
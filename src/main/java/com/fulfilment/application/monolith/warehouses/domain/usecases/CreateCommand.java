@@ -0,0 +1,64 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+
+/**
+ * A warehouse to create, with what the create rules read about it. Each value is looked up the first time a rule
+ * asks for it, so a command rejected early never pays for the lookups of the rules after.
+ */
+abstract class CreateCommand {
+
+  final Warehouse warehouse;
+
+  private Location location;
+  private boolean locationResolved;
+  private LocationOccupancy occupancy;
+
+  CreateCommand(Warehouse warehouse) {
+    this.warehouse = warehouse;
+  }
+
+  // null when the location is unknown
+  final Location location() {
+    if (!locationResolved) {
+      location = resolveLocation();
+      locationResolved = true;
+    }
+    return location;
+  }
+
+  final LocationOccupancy occupancy() {
+    if (occupancy == null) {
+      occupancy = loadOccupancy(location());
+    }
+    return occupancy;
+  }
+
+  abstract Location resolveLocation();
+
+  abstract boolean alreadyExists();
+
+  abstract LocationOccupancy loadOccupancy(Location location);
+
+  // for callers that read everything up front, like the reactive use case
+  static CreateCommand loaded(Warehouse warehouse, Location location, boolean alreadyExists, LocationOccupancy occupancy) {
+    return new CreateCommand(warehouse) {
+      @Override
+      Location resolveLocation() {
+        return location;
+      }
+
+      @Override
+      boolean alreadyExists() {
+        return alreadyExists;
+      }
+
+      @Override
+      LocationOccupancy loadOccupancy(Location location) {
+        return occupancy;
+      }
+    };
+  }
+}
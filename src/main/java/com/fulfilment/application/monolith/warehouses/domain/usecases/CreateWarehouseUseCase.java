@@ -1,35 +1,94 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
 import com.fulfilment.application.monolith.warehouses.domain.ports.CreateWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import io.vavr.control.Either;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
 
 @ApplicationScoped
 public class CreateWarehouseUseCase implements CreateWarehouseOperation {
 
+  public enum Mode {
+    // the business unit code and the occupancy are read, checked here, then the warehouse is inserted
+    CHECKS,
+    // the checks and the insert are a single statement of the store, whose outcome is checked here only when refused
+    CONDITIONAL_INSERT
+  }
+
+  @ConfigProperty(name = "warehouse.create.mode", defaultValue = "checks")
+  Mode mode = Mode.CHECKS;
+
   private final WarehouseStore warehouseStore;
   private final LocationResolver locationResolver;
+  private final LocationLock locationLock;
+  private final Event<WarehouseChanges> warehouseChanges;
 
-  public CreateWarehouseUseCase(WarehouseStore warehouseStore, LocationResolver locationResolver) {
+  public CreateWarehouseUseCase(WarehouseStore warehouseStore, LocationResolver locationResolver, LocationLock locationLock,
+      Event<WarehouseChanges> warehouseChanges) {
     this.warehouseStore = warehouseStore;
     this.locationResolver = locationResolver;
+    this.locationLock = locationLock;
+    this.warehouseChanges = warehouseChanges;
   }
 
   @Override
   @Transactional
-  public Either<String, Warehouse> create(Warehouse warehouse) {
-    if (warehouse.stock > warehouse.capacity) return Either.left("Cannot create a warehouse with stock greater than capacity");
-    var location = locationResolver.resolveByIdentifier(warehouse.location);
-    if (location == null) return Either.left("Location not found");
-    if (warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode) != null) return Either.left("Warehouse already exists");
-    var warehousesPerLocation = warehouseStore.getAllByLocation(warehouse.location);
-    if (location.maxNumberOfWarehouses <= warehousesPerLocation.size()) return Either.left(String.format("Location %s has reached max number of warehouses", location.identification));
-    if (location.maxCapacity - warehouse.capacity < warehousesPerLocation.stream().map(w -> w.capacity).reduce(0, Integer::sum)) return Either.left(String.format("Location %s has reached max capacity", location.identification));
+  public Either<WarehouseError, Warehouse> create(Warehouse warehouse) {
+    var command = new CreateCommand(warehouse) {
+      @Override
+      Location resolveLocation() {
+        return locationResolver.resolveByIdentifier(warehouse.location);
+      }
+
+      @Override
+      boolean alreadyExists() {
+        return warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode).isPresent();
+      }
+
+      @Override
+      LocationOccupancy loadOccupancy(Location location) {
+        return warehouseStore.getOccupancyByLocation(location.identification);
+      }
+    };
+    var error = WarehouseRules.CREATE_IN_MEMORY.firstViolation(command);
+    if (error != null) return Either.left(error);
+    // held until commit, so a concurrent create in the same location reads the occupancy including this one
+    locationLock.lock(List.of(command.location().identification));
+    if (mode == Mode.CONDITIONAL_INSERT) {
+      return createIfWithinLimits(warehouse, command.location());
+    }
+    error = WarehouseRules.CREATE_LOCKED.firstViolation(command);
+    if (error != null) return Either.left(error);
     // if all went well, create the warehouse
-    return Either.right(warehouseStore.create(warehouse));
+    warehouseStore.create(warehouse);
+    warehouseChanges.fire(WarehouseChanges.created(List.of(warehouse)));
+    return Either.right(warehouse);
+  }
+
+  private Either<WarehouseError, Warehouse> createIfWithinLimits(Warehouse warehouse, Location location) {
+    var outcome = warehouseStore.createIfWithinLimits(warehouse, location.maxNumberOfWarehouses, location.maxCapacity);
+    if (outcome.created) {
+      warehouseChanges.fire(WarehouseChanges.created(List.of(warehouse)));
+      return Either.right(warehouse);
+    }
+    // the same rules, on what the statement read, tell which check refused it
+    var error = WarehouseRules.CREATE_LOCKED.firstViolation(
+        CreateCommand.loaded(warehouse, location, outcome.alreadyExists, outcome.occupancy));
+    if (error == null) {
+      throw new IllegalStateException("Warehouse " + warehouse.businessUnitCode + " was refused by the store within the limits");
+    }
+    return Either.left(error);
   }
 }
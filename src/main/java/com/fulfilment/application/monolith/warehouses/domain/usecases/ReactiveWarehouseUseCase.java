@@ -0,0 +1,147 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import com.fulfilment.application.monolith.warehouses.domain.ports.ReactiveWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.ReactiveWarehouseStore;
+import io.smallrye.mutiny.Uni;
+import io.vavr.control.Either;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.OptimisticLockException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The create, replace and archive use cases on a {@link ReactiveWarehouseStore}: the same rules as their blocking
+ * counterparts, each run in one transaction that locks the locations it changes. Replace and archive are retried on
+ * conflicts like {@link RetryOnConflict} does for the blocking replace. Their {@link WarehouseChanges} are fired once
+ * the transaction has committed.
+ */
+@ApplicationScoped
+public class ReactiveWarehouseUseCase implements ReactiveWarehouseOperation {
+
+  private final ReactiveWarehouseStore warehouseStore;
+  private final LocationResolver locationResolver;
+  private final int maxAttempts;
+  private final Duration backoff;
+  private final Event<WarehouseChanges> warehouseChanges;
+
+  @Inject
+  public ReactiveWarehouseUseCase(ReactiveWarehouseStore warehouseStore, LocationResolver locationResolver,
+      @ConfigProperty(name = "warehouse.conflict-retry.max-attempts", defaultValue = "3") int maxAttempts,
+      @ConfigProperty(name = "warehouse.conflict-retry.backoff", defaultValue = "20ms") Duration backoff,
+      Event<WarehouseChanges> warehouseChanges) {
+    this.warehouseStore = warehouseStore;
+    this.locationResolver = locationResolver;
+    this.maxAttempts = maxAttempts;
+    this.backoff = backoff;
+    this.warehouseChanges = warehouseChanges;
+  }
+
+  @Override
+  public Uni<Either<WarehouseError, Warehouse>> create(Warehouse warehouse) {
+    var location = locationResolver.resolveByIdentifier(warehouse.location);
+    var error = WarehouseRules.CREATE_IN_MEMORY.firstViolation(CreateCommand.loaded(warehouse, location, false, null));
+    if (error != null) return rejected(error);
+    return warehouseStore.withTransaction(store -> store.lockLocations(List.of(location.identification))
+        .chain(() -> store.findByBusinessUnitCode(warehouse.businessUnitCode))
+        .chain(existing -> existing != null
+            ? rejected(WarehouseError.ALREADY_EXISTS)
+            : store.getOccupancyByLocation(location.identification).chain(occupancy -> {
+              var lockedError = WarehouseRules.CREATE_LOCKED.firstViolation(CreateCommand.loaded(warehouse, location, false, occupancy));
+              if (lockedError != null) return rejected(lockedError);
+              return store.create(warehouse).map(Either::<WarehouseError, Warehouse>right);
+            })))
+        .invoke(outcome -> {
+          if (outcome.isRight()) warehouseChanges.fire(WarehouseChanges.created(List.of(warehouse)));
+        });
+  }
+
+  @Override
+  public Uni<Either<WarehouseError, Warehouse>> replace(Warehouse newWarehouse) {
+    var location = locationResolver.resolveByIdentifier(newWarehouse.location);
+    var error = WarehouseRules.REPLACE_IN_MEMORY.firstViolation(ReplaceCommand.loaded(newWarehouse, location, null, Map.of()));
+    if (error != null) return rejected(error);
+    // set by the attempt that commits
+    var archived = new AtomicReference<Warehouse>();
+    return retryOnConflict(warehouseStore.withTransaction(store -> store.findByBusinessUnitCode(newWarehouse.businessUnitCode)
+        .chain(oldWarehouse -> {
+          archived.set(oldWarehouse);
+          var currentError = WarehouseRules.REPLACE_CURRENT.firstViolation(ReplaceCommand.loaded(newWarehouse, location, oldWarehouse, Map.of()));
+          if (currentError != null) return rejected(currentError);
+          var lockedLocations = oldWarehouse.location == null || oldWarehouse.location.equals(location.identification)
+              ? List.of(location.identification)
+              : List.of(location.identification, oldWarehouse.location);
+          return store.lockLocations(lockedLocations)
+              .chain(() -> loadOccupancies(store, lockedLocations))
+              .chain(occupancies -> replace(store, ReplaceCommand.loaded(newWarehouse, location, oldWarehouse, occupancies)));
+        })))
+        .invoke(outcome -> {
+          if (outcome.isRight()) warehouseChanges.fire(WarehouseChanges.replaced(archived.get(), newWarehouse));
+        });
+  }
+
+  @Override
+  public Uni<Boolean> archive(String businessUnitCode) {
+    var archived = new AtomicReference<Warehouse>();
+    return retryOnConflict(warehouseStore.withTransaction(store -> store.findByBusinessUnitCode(businessUnitCode)
+        .chain(warehouse -> {
+          if (warehouse == null) return Uni.createFrom().item(false);
+          warehouse.archivedAt = LocalDateTime.now();
+          archived.set(warehouse);
+          return store.update(warehouse).replaceWith(true);
+        })))
+        .invoke(found -> {
+          if (found) warehouseChanges.fire(WarehouseChanges.archived(archived.get()));
+        });
+  }
+
+  private Uni<Either<WarehouseError, Warehouse>> replace(ReactiveWarehouseStore store, ReplaceCommand command) {
+    var error = WarehouseRules.REPLACE_LOCKED.firstViolation(command);
+    if (error != null) return rejected(error);
+    var oldWarehouse = command.oldWarehouse();
+    oldWarehouse.archivedAt = LocalDateTime.now();
+    return store.update(oldWarehouse)
+        .chain(() -> store.create(command.newWarehouse))
+        .map(Either::<WarehouseError, Warehouse>right);
+  }
+
+  // read one after the other: they share the connection of the transaction
+  private static Uni<Map<String, LocationOccupancy>> loadOccupancies(ReactiveWarehouseStore store, List<String> locations) {
+    Uni<Map<String, LocationOccupancy>> occupancies = Uni.createFrom().item(new HashMap<>());
+    for (String location : locations) {
+      occupancies = occupancies.chain(loaded -> store.getOccupancyByLocation(location).map(occupancy -> {
+        loaded.put(location, occupancy);
+        return loaded;
+      }));
+    }
+    return occupancies;
+  }
+
+  // resubscribing runs the whole transaction again, re-reading what changed
+  private <T> Uni<T> retryOnConflict(Uni<T> transaction) {
+    if (maxAttempts <= 1) {
+      return transaction;
+    }
+    return transaction.onFailure(OptimisticLockException.class)
+        .retry()
+        .withBackOff(backoff, backoff.multipliedBy(1 << 10))
+        .withJitter(0.5)
+        .atMost(maxAttempts - 1);
+  }
+
+  private static Uni<Either<WarehouseError, Warehouse>> rejected(WarehouseError error) {
+    return Uni.createFrom().item(Either.left(error));
+  }
+}
@@ -0,0 +1,92 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import java.util.Map;
+
+/**
+ * A warehouse replacing the active one with the same business unit code, with what the replace rules read about
+ * them, each value looked up the first time a rule asks for it.
+ */
+abstract class ReplaceCommand {
+
+  final Warehouse newWarehouse;
+
+  private Location location;
+  private boolean locationResolved;
+  private Warehouse oldWarehouse;
+  private boolean oldWarehouseLoaded;
+  private LocationOccupancy newLocationOccupancy;
+  private LocationOccupancy oldLocationOccupancy;
+
+  ReplaceCommand(Warehouse newWarehouse) {
+    this.newWarehouse = newWarehouse;
+  }
+
+  // the location of the new warehouse, null when it is unknown
+  final Location location() {
+    if (!locationResolved) {
+      location = resolveLocation();
+      locationResolved = true;
+    }
+    return location;
+  }
+
+  // the active warehouse being replaced, null when there is none
+  final Warehouse oldWarehouse() {
+    if (!oldWarehouseLoaded) {
+      oldWarehouse = loadOldWarehouse();
+      oldWarehouseLoaded = true;
+    }
+    return oldWarehouse;
+  }
+
+  final boolean isInTheSameLocation() {
+    return newWarehouse.location != null && newWarehouse.location.equals(oldWarehouse().location);
+  }
+
+  final LocationOccupancy newLocationOccupancy() {
+    if (newLocationOccupancy == null) {
+      newLocationOccupancy = loadOccupancy(newWarehouse.location);
+    }
+    return newLocationOccupancy;
+  }
+
+  final LocationOccupancy oldLocationOccupancy() {
+    if (isInTheSameLocation()) {
+      return newLocationOccupancy();
+    }
+    if (oldLocationOccupancy == null) {
+      oldLocationOccupancy = loadOccupancy(oldWarehouse().location);
+    }
+    return oldLocationOccupancy;
+  }
+
+  abstract Location resolveLocation();
+
+  abstract Warehouse loadOldWarehouse();
+
+  abstract LocationOccupancy loadOccupancy(String location);
+
+  // for callers that read everything up front, like the reactive use case; occupancies are by location
+  static ReplaceCommand loaded(Warehouse newWarehouse, Location location, Warehouse oldWarehouse,
+      Map<String, LocationOccupancy> occupancies) {
+    return new ReplaceCommand(newWarehouse) {
+      @Override
+      Location resolveLocation() {
+        return location;
+      }
+
+      @Override
+      Warehouse loadOldWarehouse() {
+        return oldWarehouse;
+      }
+
+      @Override
+      LocationOccupancy loadOccupancy(String location) {
+        return occupancies.get(location);
+      }
+    };
+  }
+}
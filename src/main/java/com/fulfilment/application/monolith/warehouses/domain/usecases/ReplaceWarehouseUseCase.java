@@ -1,56 +1,75 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ReplaceWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import io.vavr.control.Either;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.transaction.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 
 @ApplicationScoped
 public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
 
   private final WarehouseStore warehouseStore;
   private final LocationResolver locationResolver;
-  public ReplaceWarehouseUseCase(WarehouseStore warehouseStore, LocationResolver locationResolver) {
+  private final LocationLock locationLock;
+  private final Event<WarehouseChanges> warehouseChanges;
+  public ReplaceWarehouseUseCase(WarehouseStore warehouseStore, LocationResolver locationResolver, LocationLock locationLock,
+      Event<WarehouseChanges> warehouseChanges) {
     this.warehouseStore = warehouseStore;
       this.locationResolver = locationResolver;
+      this.locationLock = locationLock;
+      this.warehouseChanges = warehouseChanges;
   }
 
   @Override
   @Transactional
-  public Either<String, Warehouse> replace(Warehouse newWarehouse) {
-    if (newWarehouse.stock > newWarehouse.capacity) return Either.left("Cannot create a warehouse with stock greater than capacity");
-    var location = locationResolver.resolveByIdentifier(newWarehouse.location);
-    if (location == null) return Either.left("Location not found");
-    var oldWarehouse = warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode);
-    if (oldWarehouse == null) return Either.left("Warehouse to replace not found");
-    // extra check
-    if (oldWarehouse.stock != newWarehouse.stock) return Either.left(String.format("Stock match error old warehouse stock %d but new warehouse stock %d", oldWarehouse.stock, newWarehouse.stock));
-
-    var warehousesPerLocationForNewWarehouse = warehouseStore.getAllByLocation(newWarehouse.location);
-
-    var isInTheSameLocation = newWarehouse.location != null &&  newWarehouse.location.equals(oldWarehouse.location);
-    var deltaCapacity = isInTheSameLocation ? newWarehouse.capacity - oldWarehouse.capacity : newWarehouse.capacity;
-
-    if (location.maxCapacity - deltaCapacity < warehousesPerLocationForNewWarehouse.stream().map(w -> w.capacity).reduce(0, Integer::sum)) return Either.left(String.format("Location %s has reached max capacity", location.identification));
-
-    if (!isInTheSameLocation && location.maxNumberOfWarehouses <= warehousesPerLocationForNewWarehouse.size()) {
-      //if it is in the same location, then I don't need to check if the system will overrun the max number of warehouses, because I add one and delete one
-        return Either.left(String.format("Location %s has reached max number of warehouses", location.identification));
-    }
-    // extra check //TODO Capacity Accommodation Ask to Ikea maybe  I did NOT understand
-    var deltaCapacityForStock = isInTheSameLocation ? newWarehouse.capacity - oldWarehouse.capacity : - oldWarehouse.capacity;
-    var warehousesPerLocationForOldWarehouse = warehouseStore.getAllByLocation(oldWarehouse.location);
-    var currentStockForOldLocation = warehousesPerLocationForOldWarehouse.stream().map(w -> w.stock).reduce(0, Integer::sum);
-    var currentCapacityForOldLocation = warehousesPerLocationForOldWarehouse.stream().map(w -> w.capacity).reduce(0, Integer::sum);
-    if (currentCapacityForOldLocation + deltaCapacityForStock < currentStockForOldLocation) return Either.left(String.format("Cannot accommodate the current stock level %d because the new capacity for location %s is %d", currentStockForOldLocation, location.identification, currentCapacityForOldLocation + deltaCapacityForStock));
+  @RetryOnConflict
+  public Either<WarehouseError, Warehouse> replace(Warehouse newWarehouse) {
+    var command = new ReplaceCommand(newWarehouse) {
+      @Override
+      Location resolveLocation() {
+        return locationResolver.resolveByIdentifier(newWarehouse.location);
+      }
+
+      @Override
+      Warehouse loadOldWarehouse() {
+        return warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode).orElse(null);
+      }
+
+      @Override
+      LocationOccupancy loadOccupancy(String location) {
+        return warehouseStore.getOccupancyByLocation(location);
+      }
+    };
+    var error = WarehouseRules.REPLACE_IN_MEMORY.firstViolation(command);
+    if (error != null) return Either.left(error);
+    error = WarehouseRules.REPLACE_CURRENT.firstViolation(command);
+    if (error != null) return Either.left(error);
+
+    // both locations change: capacity is added to the new one and, when moving, removed from the old one
+    var oldWarehouse = command.oldWarehouse();
+    var lockedLocations = new ArrayList<String>(2);
+    lockedLocations.add(command.location().identification);
+    if (oldWarehouse.location != null) lockedLocations.add(oldWarehouse.location);
+    locationLock.lock(lockedLocations);
+
+    error = WarehouseRules.REPLACE_LOCKED.firstViolation(command);
+    if (error != null) return Either.left(error);
     oldWarehouse.archivedAt = LocalDateTime.now();
     warehouseStore.update(oldWarehouse);
     warehouseStore.create(newWarehouse);
+    warehouseChanges.fire(WarehouseChanges.replaced(oldWarehouse, newWarehouse));
     return Either.right(newWarehouse);
   }
 }
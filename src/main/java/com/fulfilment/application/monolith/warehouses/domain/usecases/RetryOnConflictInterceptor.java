@@ -0,0 +1,79 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.transaction.Status;
+import jakarta.transaction.SystemException;
+import jakarta.transaction.TransactionManager;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Retries an {@link OptimisticLockException} a bounded number of times, waiting an exponentially growing, jittered
+ * delay in between so that writers racing on the same business unit spread out.
+ *
+ * <p>Its priority places it around the {@code @Transactional} interceptor: every attempt runs in a transaction of
+ * its own and re-reads what changed. Called inside an enclosing transaction it does not retry, since that
+ * transaction is already marked for rollback.
+ */
+@RetryOnConflict
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 100)
+public class RetryOnConflictInterceptor {
+
+  private static final Logger LOGGER = Logger.getLogger(RetryOnConflictInterceptor.class.getName());
+
+  private final TransactionManager transactionManager;
+  private final int maxAttempts;
+  private final long backoffNanos;
+
+  @Inject
+  public RetryOnConflictInterceptor(TransactionManager transactionManager,
+      @ConfigProperty(name = "warehouse.conflict-retry.max-attempts", defaultValue = "3") int maxAttempts,
+      @ConfigProperty(name = "warehouse.conflict-retry.backoff", defaultValue = "20ms") Duration backoff) {
+    this.transactionManager = transactionManager;
+    this.maxAttempts = maxAttempts;
+    this.backoffNanos = backoff.toNanos();
+  }
+
+  @AroundInvoke
+  Object retry(InvocationContext context) throws Exception {
+    if (transactionManager.getStatus() != Status.STATUS_NO_TRANSACTION) {
+      return context.proceed();
+    }
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return context.proceed();
+      } catch (Exception e) {
+        if (!isConflict(e) || attempt >= maxAttempts) {
+          throw e;
+        }
+        LOGGER.debugf("Conflict in %s, attempt %d of %d: %s", context.getMethod().getName(), attempt, maxAttempts, e.getMessage());
+        sleep(attempt);
+      }
+    }
+  }
+
+  // thrown by the store, or by the flush at commit where the transaction manager wraps it
+  private static boolean isConflict(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof OptimisticLockException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void sleep(int attempt) throws InterruptedException {
+    // between half and all of backoff * 2^(attempt - 1)
+    long delay = backoffNanos << Math.min(attempt - 1, 10);
+    long jittered = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    Thread.sleep(jittered / 1_000_000, (int) (jittered % 1_000_000));
+  }
+}
@@ -0,0 +1,33 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+
+/**
+ * Rules checked in order until the first one fails. A use case runs one pipeline per stage (in memory, reading the
+ * store, under the location locks), so the cheap rules reject a command before anything is read or locked for it.
+ * Passing or failing allocates nothing beyond what the failing rule returns.
+ */
+final class ValidationPipeline<C> {
+
+  private final WarehouseRule<C>[] rules;
+
+  private ValidationPipeline(WarehouseRule<C>[] rules) {
+    this.rules = rules;
+  }
+
+  @SafeVarargs
+  static <C> ValidationPipeline<C> of(WarehouseRule<C>... rules) {
+    return new ValidationPipeline<>(rules.clone());
+  }
+
+  // null when every rule passes
+  WarehouseError firstViolation(C command) {
+    for (WarehouseRule<C> rule : rules) {
+      var error = rule.check(command);
+      if (error != null) {
+        return error;
+      }
+    }
+    return null;
+  }
+}
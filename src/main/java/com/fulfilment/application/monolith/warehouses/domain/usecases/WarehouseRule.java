@@ -0,0 +1,10 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+
+// one check of a warehouse command: null when the command passes it, the error otherwise
+@FunctionalInterface
+interface WarehouseRule<C> {
+
+  WarehouseError check(C command);
+}
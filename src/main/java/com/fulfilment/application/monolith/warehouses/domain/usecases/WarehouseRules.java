@@ -0,0 +1,67 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import java.util.Objects;
+
+// the validation of the warehouse use cases, staged from the cheapest rules to those that need the location locks
+final class WarehouseRules {
+
+  // create, before anything is read from the store
+  static final ValidationPipeline<CreateCommand> CREATE_IN_MEMORY = ValidationPipeline.of(
+      command -> command.warehouse.stock > command.warehouse.capacity ? WarehouseError.STOCK_GREATER_THAN_CAPACITY : null,
+      command -> command.location() == null ? WarehouseError.LOCATION_NOT_FOUND : null);
+
+  // create, with the location locked
+  static final ValidationPipeline<CreateCommand> CREATE_LOCKED = ValidationPipeline.of(
+      command -> command.alreadyExists() ? WarehouseError.ALREADY_EXISTS : null,
+      command -> command.location().maxNumberOfWarehouses <= command.occupancy().numberOfWarehouses
+          ? WarehouseError.maxNumberOfWarehousesReached(command.location())
+          : null,
+      command -> command.location().maxCapacity - command.warehouse.capacity < command.occupancy().totalCapacity
+          ? WarehouseError.maxCapacityReached(command.location())
+          : null);
+
+  // replace, before anything is read from the store
+  static final ValidationPipeline<ReplaceCommand> REPLACE_IN_MEMORY = ValidationPipeline.of(
+      command -> command.newWarehouse.stock > command.newWarehouse.capacity ? WarehouseError.STOCK_GREATER_THAN_CAPACITY : null,
+      command -> command.location() == null ? WarehouseError.LOCATION_NOT_FOUND : null);
+
+  // replace, reading the warehouse being replaced: it tells which locations to lock
+  static final ValidationPipeline<ReplaceCommand> REPLACE_CURRENT = ValidationPipeline.of(
+      command -> command.oldWarehouse() == null ? WarehouseError.TO_REPLACE_NOT_FOUND : null,
+      command -> !Objects.equals(command.oldWarehouse().stock, command.newWarehouse.stock)
+          ? WarehouseError.stockMismatch(command.oldWarehouse().stock, command.newWarehouse.stock)
+          : null);
+
+  // replace, with both locations locked
+  static final ValidationPipeline<ReplaceCommand> REPLACE_LOCKED = ValidationPipeline.of(
+      command -> command.location().maxCapacity - capacityAddedToNewLocation(command) < command.newLocationOccupancy().totalCapacity
+          ? WarehouseError.maxCapacityReached(command.location())
+          : null,
+      // in the same location one warehouse is added and one removed: the number of warehouses does not change
+      command -> !command.isInTheSameLocation()
+          && command.location().maxNumberOfWarehouses <= command.newLocationOccupancy().numberOfWarehouses
+          ? WarehouseError.maxNumberOfWarehousesReached(command.location())
+          : null,
+      command -> {
+        var occupancy = command.oldLocationOccupancy();
+        var capacityLeft = occupancy.totalCapacity + capacityChangeOfOldLocation(command);
+        return capacityLeft < occupancy.totalStock
+            ? WarehouseError.cannotAccommodateStock(occupancy.totalStock, command.location(), capacityLeft)
+            : null;
+      });
+
+  private WarehouseRules() {}
+
+  private static int capacityAddedToNewLocation(ReplaceCommand command) {
+    return command.isInTheSameLocation()
+        ? command.newWarehouse.capacity - command.oldWarehouse().capacity
+        : command.newWarehouse.capacity;
+  }
+
+  private static int capacityChangeOfOldLocation(ReplaceCommand command) {
+    return command.isInTheSameLocation()
+        ? command.newWarehouse.capacity - command.oldWarehouse().capacity
+        : -command.oldWarehouse().capacity;
+  }
+}
@@ -12,9 +12,11 @@ public interface WarehouseMapper {
     WarehouseMapper INSTANCE = Mappers.getMapper(WarehouseMapper.class);
 
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
     DbWarehouse warehouseDtoToDbWarehouse(Warehouse warehouse);
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "archivedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Warehouse pojoWarehouseToWarehouse(com.warehouse.api.beans.Warehouse warehouse);
     @Mapping(target = "id", ignore = true)
     com.warehouse.api.beans.Warehouse warehouseToPojoWarehouse(Warehouse warehouse);
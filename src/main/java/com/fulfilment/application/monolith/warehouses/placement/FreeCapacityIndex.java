@@ -0,0 +1,158 @@
+package com.fulfilment.application.monolith.warehouses.placement;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationCatalogue;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.jboss.logging.Logger;
+
+/**
+ * The locations of the catalogue that can still take a warehouse, sorted by free capacity, so that the locations able
+ * to take a given capacity are a tail of the index.
+ *
+ * <p>The use cases fire {@link WarehouseChanges}; once committed, the locations they touched are marked stale and
+ * their occupancy is read again, by its partial index, before the next answer. Reading the committed occupancy instead
+ * of applying the changes keeps the index right whatever order the changes are observed in. Every location is marked
+ * stale at startup and periodically, which also picks up the changes made by other instances.
+ *
+ * <p>Answers read a concurrent skip list without locking. A location being updated is briefly missing from them.
+ */
+@ApplicationScoped
+public class FreeCapacityIndex {
+
+  private static final Logger LOGGER = Logger.getLogger(FreeCapacityIndex.class.getName());
+
+  private static final Comparator<LocationHeadroom> BY_FREE_CAPACITY =
+      Comparator.<LocationHeadroom>comparingLong(headroom -> headroom.freeCapacity)
+          .thenComparing(headroom -> headroom.location);
+
+  // the catalogue by identifier
+  private final Map<String, Location> locations;
+  // occupancy of the given locations, read from the store in one transaction
+  private final Function<List<String>, Map<String, LocationOccupancy>> occupancyReader;
+
+  // locations with at least one warehouse slot left
+  private final ConcurrentSkipListSet<LocationHeadroom> index = new ConcurrentSkipListSet<>(BY_FREE_CAPACITY);
+  // guarded by this, as the reads of the occupancy, so that an older read never replaces a newer one
+  private final Map<String, LocationHeadroom> headroomByLocation = new HashMap<>();
+  private final Set<String> stale = ConcurrentHashMap.newKeySet();
+
+  @Inject
+  public FreeCapacityIndex(LocationCatalogue locationCatalogue, WarehouseStore warehouseStore) {
+    this(locationCatalogue, locations -> QuarkusTransaction.requiringNew().call(() -> {
+      var occupancies = new HashMap<String, LocationOccupancy>();
+      locations.forEach(location -> occupancies.put(location, warehouseStore.getOccupancyByLocation(location)));
+      return occupancies;
+    }));
+  }
+
+  FreeCapacityIndex(LocationCatalogue locationCatalogue, Function<List<String>, Map<String, LocationOccupancy>> occupancyReader) {
+    this.locations = locationCatalogue.allLocations().stream()
+        .collect(Collectors.toUnmodifiableMap(location -> location.identification, location -> location));
+    this.occupancyReader = occupancyReader;
+  }
+
+  void load(@Observes StartupEvent startup) {
+    refreshAll();
+  }
+
+  @Scheduled(every = "${warehouse.placement.refresh-interval:15m}", delayed = "${warehouse.placement.refresh-interval:15m}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void refreshAll() {
+    stale.addAll(locations.keySet());
+    try {
+      refreshStale();
+    } catch (RuntimeException e) {
+      // left stale: read again by the next answer
+      LOGGER.error("Cannot read the occupancy of the locations", e);
+    }
+  }
+
+  void onCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) WarehouseChanges changes) {
+    changes.archived.forEach(this::markStale);
+    changes.created.forEach(this::markStale);
+  }
+
+  /**
+   * The locations that can take one more warehouse of {@code capacity}, the tightest fit first, at most {@code limit}
+   * of them.
+   */
+  public List<LocationHeadroom> locationsFor(long capacity, int limit) {
+    if (!stale.isEmpty()) {
+      refreshStale();
+    }
+    var fitting = new ArrayList<LocationHeadroom>(Math.min(limit, 16));
+    // "" sorts before every identifier: the tail starts at the first location with that much free capacity
+    for (var headroom : index.tailSet(new LocationHeadroom("", capacity, 0), true)) {
+      if (fitting.size() == limit) {
+        break;
+      }
+      fitting.add(headroom);
+    }
+    return fitting;
+  }
+
+  private void markStale(Warehouse warehouse) {
+    if (warehouse.location != null) {
+      stale.add(warehouse.location);
+    }
+  }
+
+  private synchronized void refreshStale() {
+    var refreshed = new ArrayList<String>();
+    for (var iterator = stale.iterator(); iterator.hasNext(); ) {
+      var identifier = iterator.next();
+      // removed before the read: a change committed meanwhile marks it again
+      iterator.remove();
+      if (locations.containsKey(identifier)) {
+        refreshed.add(identifier);
+      }
+    }
+    if (refreshed.isEmpty()) {
+      return;
+    }
+    Map<String, LocationOccupancy> occupancies;
+    try {
+      occupancies = occupancyReader.apply(refreshed);
+    } catch (RuntimeException e) {
+      stale.addAll(refreshed);
+      throw e;
+    }
+    for (String identifier : refreshed) {
+      var location = locations.get(identifier);
+      var occupancy = occupancies.getOrDefault(location.identification, LocationOccupancy.EMPTY);
+      update(new LocationHeadroom(location.identification,
+          location.maxCapacity - occupancy.totalCapacity,
+          location.maxNumberOfWarehouses - occupancy.numberOfWarehouses));
+    }
+  }
+
+  private void update(LocationHeadroom headroom) {
+    var previous = headroomByLocation.put(headroom.location, headroom);
+    if (previous != null) {
+      index.remove(previous);
+    }
+    if (headroom.freeWarehouseSlots > 0) {
+      index.add(headroom);
+    }
+  }
+}
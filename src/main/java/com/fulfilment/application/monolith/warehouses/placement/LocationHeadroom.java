@@ -0,0 +1,17 @@
+package com.fulfilment.application.monolith.warehouses.placement;
+
+// what a location can still take: capacity left under its maximum, and warehouses left under its maximum number
+public class LocationHeadroom {
+
+  public final String location;
+
+  public final long freeCapacity;
+
+  public final long freeWarehouseSlots;
+
+  public LocationHeadroom(String location, long freeCapacity, long freeWarehouseSlots) {
+    this.location = location;
+    this.freeCapacity = freeCapacity;
+    this.freeWarehouseSlots = freeWarehouseSlots;
+  }
+}
@@ -0,0 +1,2 @@
+CREATE UNIQUE INDEX warehouse_active_bu_code_uidx ON warehouse (businessUnitCode) WHERE archivedAt IS NULL;
+CREATE INDEX warehouse_active_location_idx ON warehouse (location) INCLUDE (capacity, stock) WHERE archivedAt IS NULL;
@@ -0,0 +1,105 @@
+package com.fulfilment.application.monolith.caching;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SerializedListCacheTest {
+
+  private final TransactionSynchronizationRegistry transactions = mock(TransactionSynchronizationRegistry.class);
+  private final AtomicLong now = new AtomicLong();
+  private final SerializedListCache cache =
+      new SerializedListCache(new ObjectMapper(), transactions, Duration.ofMinutes(1), now::get);
+  private final Request request = mock(Request.class);
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  public void testWhenReadTwiceThenTheListIsLoadedAndSerializedOnce() {
+    var first = cache.get(request, this::loadNames);
+    var second = cache.get(request, this::loadNames);
+
+    assertEquals(1, loads.get());
+    assertArrayEquals("[\"KALLAX\",\"TONSTAD\"]".getBytes(), (byte[]) second.getEntity());
+    assertEquals(first.getEntityTag(), second.getEntityTag());
+  }
+
+  @Test
+  public void testWhenTheClientHoldsTheCurrentTagThenNotModifiedIsAnswered() {
+    var tag = cache.get(request, this::loadNames).getEntityTag();
+    when(request.evaluatePreconditions(tag)).thenReturn(Response.notModified(tag));
+
+    assertEquals(304, cache.get(request, this::loadNames).getStatus());
+  }
+
+  @Test
+  public void testWhenInvalidatedOutsideOfATransactionThenTheListIsReloaded() {
+    cache.get(request, this::loadNames);
+    cache.invalidate();
+    cache.get(request, this::loadNames);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testWhenOlderThanTheMaxAgeThenTheListIsReloaded() {
+    cache.get(request, this::loadNames);
+    now.addAndGet(Duration.ofSeconds(59).toNanos());
+    cache.get(request, this::loadNames);
+    assertEquals(1, loads.get());
+
+    // written through another instance meanwhile: seen once the max age is reached
+    now.addAndGet(Duration.ofSeconds(1).toNanos());
+    cache.get(request, this::loadNames);
+    cache.get(request, this::loadNames);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testWhenInvalidatedWhileLoadingThenTheLoadedListIsNotKept() {
+    cache.get(request, () -> {
+      cache.invalidate();
+      return loadNames();
+    });
+    cache.get(request, this::loadNames);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testWhenInvalidatedInATransactionThenTheListIsDroppedAgainAfterItCompletes() {
+    when(transactions.getTransactionKey()).thenReturn(new Object());
+    cache.invalidate();
+    var synchronization = ArgumentCaptor.forClass(Synchronization.class);
+    verify(transactions).registerInterposedSynchronization(synchronization.capture());
+
+    // read before the write committed: still the previous content
+    cache.get(request, this::loadNames);
+    synchronization.getValue().afterCompletion(0);
+    cache.get(request, this::loadNames);
+
+    assertEquals(2, loads.get());
+  }
+
+  private List<String> loadNames() {
+    loads.incrementAndGet();
+    return List.of("KALLAX", "TONSTAD");
+  }
+}
@@ -0,0 +1,71 @@
+package com.fulfilment.application.monolith.errors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ApiErrorMapperTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ApiErrorMapper mapper =
+      new ApiErrorMapper(new ErrorLogSampler(10, TimeUnit.MINUTES.toNanos(1), System::nanoTime));
+
+  @Test
+  public void testWhenAnApiExceptionIsMappedThenTheBodyIsTheOneOfAWebApplicationException() throws IOException {
+    var response = mapper.toResponse(ApiException.notFound("Store with id of 7 does not exist."));
+
+    assertThat(response.getStatus(), equalTo(404));
+    var body = objectMapper.readTree((byte[]) response.getEntity());
+    assertThat(body.get("exceptionType").asText(), equalTo(WebApplicationException.class.getName()));
+    assertThat(body.get("code").asInt(), equalTo(404));
+    assertThat(body.get("error").asText(), equalTo("Store with id of 7 does not exist."));
+  }
+
+  @Test
+  public void testWhenTheMessageNeedsEscapingThenTheBodyIsStillValidJson() throws IOException {
+    var response = mapper.toResponse(ApiException.unprocessable("Invalid product on line 3: \"name\"\n\\ é"));
+
+    var body = objectMapper.readTree((byte[]) response.getEntity());
+    assertThat(body.get("error").asText(), equalTo("Invalid product on line 3: \"name\"\n\\ é"));
+  }
+
+  @Test
+  public void testWhenAnUnexpectedExceptionIsMappedThenItIsAServerErrorWithoutMessage() throws IOException {
+    var response = mapper.toResponse(new IllegalStateException());
+
+    assertThat(response.getStatus(), equalTo(500));
+    var body = objectMapper.readTree((byte[]) response.getEntity());
+    assertThat(body.get("exceptionType").asText(), equalTo(IllegalStateException.class.getName()));
+    assertThat(body.has("error"), equalTo(false));
+  }
+
+  @Test
+  public void testWhenTheExceptionResponseHasHeadersThenTheyAreKept() {
+    var response = mapper.toResponse(new ApiException("Too many concurrent requests, try again later.",
+        Response.status(503).header("Retry-After", 1).build()));
+
+    assertThat(response.getStatus(), equalTo(503));
+    assertThat(response.getHeaderString("Retry-After"), equalTo("1"));
+  }
+
+  @Test
+  public void testWhenTheExceptionResponseHasAnEntityThenItIsReturnedAsIs() {
+    var prepared = Response.status(400).entity("prepared").build();
+
+    assertThat(mapper.toResponse(new ApiException(prepared)), sameInstance(prepared));
+  }
+
+  @Test
+  public void testApiExceptionsRecordNoStackTrace() {
+    assertThat(ApiException.conflict("changed concurrently").getStackTrace(), emptyArray());
+  }
+}
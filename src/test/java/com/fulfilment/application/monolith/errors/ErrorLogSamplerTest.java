@@ -0,0 +1,37 @@
+package com.fulfilment.application.monolith.errors;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ErrorLogSamplerTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final ErrorLogSampler sampler = new ErrorLogSampler(2, 100, clock::get);
+
+  @Test
+  public void testWhenMoreErrorsThanAllowedThenTheOthersAreSuppressedUntilTheNextInterval() {
+    assertThat(sampler.admit(IllegalStateException.class), equalTo(0L));
+    assertThat(sampler.admit(IllegalStateException.class), equalTo(0L));
+    assertThat(sampler.admit(IllegalStateException.class), equalTo(-1L));
+    assertThat(sampler.admit(IllegalStateException.class), equalTo(-1L));
+
+    clock.addAndGet(100);
+
+    // the first line of the new interval reports the ones dropped
+    assertThat(sampler.admit(IllegalStateException.class), equalTo(2L));
+    assertThat(sampler.admit(IllegalStateException.class), equalTo(0L));
+  }
+
+  @Test
+  public void testErrorClassesAreSampledIndependently() {
+    sampler.admit(IllegalStateException.class);
+    sampler.admit(IllegalStateException.class);
+    assertThat(sampler.admit(IllegalStateException.class), equalTo(-1L));
+
+    assertThat(sampler.admit(ApiException.class), equalTo(0L));
+  }
+}
@@ -0,0 +1,71 @@
+package com.fulfilment.application.monolith.execution;
+
+import jakarta.interceptor.InvocationContext;
+import jakarta.ws.rs.WebApplicationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BoundedByConnectionPoolInterceptorTest {
+
+  private final ConnectionPoolBulkhead bulkhead = new ConnectionPoolBulkhead(1, Duration.ofMillis(20));
+  private final BoundedByConnectionPoolInterceptor interceptor = new BoundedByConnectionPoolInterceptor(bulkhead);
+  private final InvocationContext context = mock(InvocationContext.class);
+
+  @Test
+  public void testWhenASlotIsFreeThenTheRequestProceedsAndGivesItBack() throws Exception {
+    when(context.proceed()).thenReturn("done");
+
+    assertThat(interceptor.admit(context), equalTo("done"));
+    assertThat(interceptor.admit(context), equalTo("done"));
+  }
+
+  @Test
+  public void testWhenTheRequestFailsThenItsSlotIsGivenBack() throws Exception {
+    when(context.proceed()).thenThrow(new IllegalStateException());
+
+    assertThrows(IllegalStateException.class, () -> interceptor.admit(context));
+    assertTrue(bulkhead.enter());
+  }
+
+  @Test
+  public void testWhenNoSlotFreesUpInTimeThenTheRequestIsRejectedWithServiceUnavailable() throws Exception {
+    assertTrue(bulkhead.enter());
+
+    var rejection = assertThrows(WebApplicationException.class, () -> interceptor.admit(context));
+    assertThat(rejection.getResponse().getStatus(), equalTo(503));
+    assertThat(rejection.getResponse().getHeaderString("Retry-After"), equalTo("1"));
+    verify(context, never()).proceed();
+  }
+
+  @Test
+  public void testWhenAStreamedBodyIsWrittenThenItHoldsASlotUntilItIsDone() throws Exception {
+    var slotsWhileWriting = new ArrayList<Boolean>();
+    var body = bulkhead.bounded(output -> {
+      try {
+        slotsWhileWriting.add(bulkhead.enter());
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    body.write(OutputStream.nullOutputStream());
+
+    assertThat(slotsWhileWriting, contains(false));
+    assertTrue(bulkhead.enter());
+    var rejection = assertThrows(WebApplicationException.class, () -> body.write(OutputStream.nullOutputStream()));
+    assertThat(rejection.getResponse().getStatus(), equalTo(503));
+  }
+}
@@ -2,11 +2,24 @@ package com.fulfilment.application.monolith.location;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class LocationGatewayTest {
 
+  @TempDir
+  Path tempDir;
+
   @Test
   public void testWhenResolveExistingLocationShouldReturn() {
     // given
@@ -18,4 +31,50 @@ public class LocationGatewayTest {
     // then
     assertEquals(location.identification, "ZWOLLE-001");
   }
+
+  @Test
+  public void testWhenResolveUnknownOrNullLocationShouldReturnNull() {
+    LocationGateway locationGateway = new LocationGateway();
+
+    assertNull(locationGateway.resolveByIdentifier("UNKNOWN-001"));
+    assertNull(locationGateway.resolveByIdentifier(null));
+  }
+
+  @Test
+  public void testWhenResolveTwiceShouldReturnTheSameInstance() {
+    LocationGateway locationGateway = new LocationGateway();
+
+    assertSame(locationGateway.resolveByIdentifier("AMSTERDAM-001"), locationGateway.resolveByIdentifier("AMSTERDAM-001"));
+  }
+
+  @Test
+  public void testWhenCatalogueFileIsConfiguredThenLocationsAreLoadedFromIt() throws IOException {
+    var catalogue = tempDir.resolve("locations.csv");
+    Files.writeString(catalogue, "# identification,maxNumberOfWarehouses,maxCapacity\nROTTERDAM-001, 4, 200\n\nUTRECHT-001,2,60\n");
+
+    LocationGateway locationGateway = new LocationGateway(Optional.of(catalogue.toString()));
+
+    Location location = locationGateway.resolveByIdentifier("ROTTERDAM-001");
+    assertEquals(4, location.maxNumberOfWarehouses);
+    assertEquals(200, location.maxCapacity);
+    assertEquals(60, locationGateway.resolveByIdentifier("UTRECHT-001").maxCapacity);
+    assertNull(locationGateway.resolveByIdentifier("ZWOLLE-001"));
+  }
+
+  @Test
+  public void testAllLocationsListsTheWholeCatalogue() {
+    var locations = List.of(new Location("ZWOLLE-001", 1, 40), new Location("UTRECHT-001", 2, 60));
+
+    LocationGateway locationGateway = new LocationGateway(locations);
+
+    assertEquals(2, locationGateway.allLocations().size());
+    assertEquals(8, new LocationGateway().allLocations().size());
+  }
+
+  @Test
+  public void testWhenCatalogueHasDuplicatedIdentifiersThenItIsRejected() {
+    var locations = List.of(new Location("ZWOLLE-001", 1, 40), new Location("ZWOLLE-001", 2, 50));
+
+    assertThrows(IllegalArgumentException.class, () -> new LocationGateway(locations));
+  }
 }
@@ -2,6 +2,7 @@ package com.fulfilment.application.monolith.products;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.core.IsNot.not;
 
 import io.quarkus.test.junit.QuarkusTest;
@@ -33,4 +34,100 @@ public class ProductEndpointTest {
         .statusCode(200)
         .body(not(containsString("TONSTAD")), containsString("KALLAX"), containsString("BESTÅ"));
   }
+
+  @Test
+  public void testSecondLevelCacheMetricsAreExposed() {
+    // the second read of the same product is served by the second-level cache
+    given().when().get("product/2").then().statusCode(200);
+    given().when().get("product/2").then().statusCode(200);
+
+    given()
+        .when()
+        .get("/q/metrics")
+        .then()
+        .statusCode(200)
+        .body(
+            containsString("hibernate_second_level_cache_requests_total"),
+            containsString("hibernate_second_level_cache_size"),
+            containsString("region=\"com.fulfilment.application.monolith.products.Product\""));
+  }
+
+  @Test
+  public void testBulkImportedProductsAreExported() {
+    given()
+        .contentType("application/x-ndjson")
+        .body("{\"name\":\"BILLY\",\"stock\":7}\n\n{\"name\":\"MALM\",\"price\":149.95}\n")
+        .when()
+        .post("product/bulk")
+        .then()
+        .statusCode(200)
+        .body("imported", is(2));
+
+    given()
+        .when()
+        .get("product/export")
+        .then()
+        .statusCode(200)
+        .contentType("application/x-ndjson")
+        .body(containsString("\"name\":\"BILLY\""), containsString("\"name\":\"MALM\""), containsString("KALLAX"));
+  }
+
+  @Test
+  public void testBulkImportIsRejectedAsAWholeWhenALineIsInvalid() {
+    given()
+        .contentType("application/x-ndjson")
+        .body("{\"name\":\"HEMNES\"}\n{\"id\":99,\"name\":\"LACK\"}\n")
+        .when()
+        .post("product/bulk")
+        .then()
+        .statusCode(422)
+        .body(containsString("line 2"));
+
+    given().when().get("product").then().statusCode(200).body(not(containsString("HEMNES")));
+  }
+
+  @Test
+  public void testStockAdjustmentsAreAppliedAllOrNone() {
+    given()
+        .contentType("application/json")
+        .body("{\"delta\": 4}")
+        .when()
+        .post("product/3/stock/adjust")
+        .then()
+        .statusCode(200)
+        .body("stock", is(7));
+
+    given()
+        .contentType("application/json")
+        .body("[{\"id\": 3, \"delta\": -1}, {\"id\": 3, \"delta\": -7}]")
+        .when()
+        .post("product/stock/adjust")
+        .then()
+        .statusCode(409);
+
+    given().when().get("product/3").then().statusCode(200).body("stock", is(7));
+  }
+
+  @Test
+  public void testListIsNotSentAgainWhileItIsUnchanged() {
+    String etag = given().when().get("product").then().statusCode(200).extract().header("ETag");
+
+    given().header("If-None-Match", etag).when().get("product").then().statusCode(304);
+
+    given()
+        .contentType("application/json")
+        .body("{\"name\":\"EKET\"}")
+        .when()
+        .post("product")
+        .then()
+        .statusCode(201);
+
+    given()
+        .header("If-None-Match", etag)
+        .when()
+        .get("product")
+        .then()
+        .statusCode(200)
+        .body(containsString("EKET"));
+  }
 }
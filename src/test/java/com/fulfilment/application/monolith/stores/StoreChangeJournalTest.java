@@ -0,0 +1,79 @@
+package com.fulfilment.application.monolith.stores;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class StoreChangeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenAppendedChanges_whenReplayed_thenTheyAreReadBackInOrder() throws IOException {
+        try (var journal = StoreChangeJournal.open(directory, 1024 * 1024, StoreChangeJournal.FsyncPolicy.WRITE)) {
+            journal.append(new StoreChangeJournal.Entry(StoreOutboxEvent.Type.CREATED, 1L, "TONSTAD", 10));
+            journal.append(new StoreChangeJournal.Entry(StoreOutboxEvent.Type.UPDATED, 1L, "BESTÅ", 3));
+        }
+
+        var entries = replay();
+        assertThat(entries.size(), is(2));
+        assertThat(entries.get(0).type, is(StoreOutboxEvent.Type.CREATED));
+        assertThat(entries.get(0).storeId, is(1L));
+        assertThat(entries.get(0).quantityProductsInStock, is(10));
+        assertThat(entries.get(1).type, is(StoreOutboxEvent.Type.UPDATED));
+        assertThat(entries.get(1).name, is("BESTÅ"));
+    }
+
+    @Test
+    public void givenSegmentsFull_whenAppending_thenTheJournalRotatesAndReplaysAcrossSegments() throws IOException {
+        try (var journal = StoreChangeJournal.open(directory, 64, StoreChangeJournal.FsyncPolicy.BATCH)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(new StoreChangeJournal.Entry(StoreOutboxEvent.Type.CREATED, i, "STORE-" + i, i));
+            }
+            journal.sync();
+        }
+
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertThat(segments.count(), greaterThan(1L));
+        }
+        assertThat(replay().stream().map(entry -> entry.storeId).toList(), contains(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L));
+    }
+
+    @Test
+    public void givenATornRecordAtTheTail_whenReopened_thenItIsCutOffAndAppendingContinues() throws IOException {
+        try (var journal = StoreChangeJournal.open(directory, 1024 * 1024, StoreChangeJournal.FsyncPolicy.NONE)) {
+            journal.append(new StoreChangeJournal.Entry(StoreOutboxEvent.Type.CREATED, 1L, "TONSTAD", 10));
+        }
+        Path segment;
+        try (Stream<Path> segments = Files.list(directory)) {
+            segment = segments.findFirst().orElseThrow();
+        }
+        // a crash in the middle of a write leaves a partial record behind
+        Files.write(segment, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (var journal = StoreChangeJournal.open(directory, 1024 * 1024, StoreChangeJournal.FsyncPolicy.NONE)) {
+            journal.append(new StoreChangeJournal.Entry(StoreOutboxEvent.Type.UPDATED, 2L, "KALLAX", 5));
+        }
+
+        assertThat(replay().stream().map(entry -> entry.storeId).toList(), contains(1L, 2L));
+    }
+
+    private List<StoreChangeJournal.Entry> replay() throws IOException {
+        var entries = new ArrayList<StoreChangeJournal.Entry>();
+        StoreChangeJournal.replay(directory, entries::add);
+        return entries;
+    }
+}
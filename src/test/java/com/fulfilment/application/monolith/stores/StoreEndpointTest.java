@@ -215,4 +215,77 @@ public class StoreEndpointTest {
             .then()
             .statusCode(NOT_FOUND);
   }
+
+  @Test
+  @Order(8)
+  public void testGivenAStoreWhenItsStockIsAdjustedThenOnlyTheDeltaIsApplied() {
+    given()
+            .contentType(ContentType.JSON)
+            .body("{\"delta\": 4}")
+            .when()
+            .post("store/3/stock/adjust")
+            .then()
+            .statusCode(OK)
+            .body("id", is(3)).body("stock", is(7));
+
+    given()
+            .contentType(ContentType.JSON)
+            .body("{\"delta\": -8}")
+            .when()
+            .post("store/3/stock/adjust")
+            .then()
+            .statusCode(CONFLICT);
+
+    given().when().get("store/3").then().statusCode(OK).body("quantityProductsInStock", is(7));
+  }
+
+  @Test
+  @Order(9)
+  public void testGivenABatchOfStockAdjustmentsWhenOneStoreDoesNotExistThenNoneIsApplied() {
+    given()
+            .contentType(ContentType.JSON)
+            .body("[{\"id\": 3, \"delta\": -1}, {\"id\": 100, \"delta\": 1}]")
+            .when()
+            .post("store/stock/adjust")
+            .then()
+            .statusCode(NOT_FOUND);
+
+    given()
+            .contentType(ContentType.JSON)
+            .body("[{\"id\": 3, \"delta\": -1}, {\"id\": 3, \"delta\": -1}]")
+            .when()
+            .post("store/stock/adjust")
+            .then()
+            .statusCode(OK)
+            .body("[0].id", is(3)).body("[0].stock", is(5));
+  }
+
+  @Test
+  @Order(10)
+  public void testGivenStockAdjustmentsBeyondTheIntegerRangeOrMissingThenTheyAreRejected() {
+    given()
+            .contentType(ContentType.JSON)
+            .body("{\"delta\": " + Integer.MAX_VALUE + "}")
+            .when()
+            .post("store/3/stock/adjust")
+            .then()
+            .statusCode(422);
+
+    given()
+            .contentType(ContentType.JSON)
+            .body("[{\"id\": 3, \"delta\": " + Integer.MAX_VALUE + "}, {\"id\": 3, \"delta\": 1}]")
+            .when()
+            .post("store/stock/adjust")
+            .then()
+            .statusCode(422);
+
+    given()
+            .contentType(ContentType.JSON)
+            .when()
+            .post("store/3/stock/adjust")
+            .then()
+            .statusCode(422);
+
+    given().when().get("store/3").then().statusCode(OK).body("quantityProductsInStock", is(5));
+  }
 }
@@ -0,0 +1,138 @@
+package com.fulfilment.application.monolith.stores;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StoreOutboxDispatcherTest {
+    @Mock
+    private StoreOutboxRepository storeOutboxRepository;
+    @Mock
+    private LegacyStoreManagerGateway legacyStoreManagerGateway;
+    @Captor
+    private ArgumentCaptor<List<Long>> deliveredCaptor;
+    @Captor
+    private ArgumentCaptor<List<StoreOutboxEvent>> pendingCaptor;
+
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    private StoreOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        dispatcher = new StoreOutboxDispatcher(storeOutboxRepository, legacyStoreManagerGateway, 10, 3, Duration.ofSeconds(1), LEASE);
+    }
+
+    @Test
+    public void givenPendingEvents_whenDispatched_thenTheyAreSentInOrderAndRemoved() {
+        var created = event(1L, 7L, StoreOutboxEvent.Type.CREATED, "TONSTAD");
+        var updated = event(2L, 7L, StoreOutboxEvent.Type.UPDATED, "KALLAX");
+        when(storeOutboxRepository.claimNextBatch(10, LEASE)).thenReturn(List.of(created, updated));
+
+        assertThat(dispatcher.dispatch(), is(2));
+
+        InOrder inOrder = inOrder(legacyStoreManagerGateway);
+        inOrder.verify(legacyStoreManagerGateway).createStoreOnLegacySystem(argThat(store -> "TONSTAD".equals(store.name)));
+        inOrder.verify(legacyStoreManagerGateway).updateStoreOnLegacySystem(argThat(store -> "KALLAX".equals(store.name)));
+        verify(storeOutboxRepository).complete(deliveredCaptor.capture(), pendingCaptor.capture());
+        assertThat(deliveredCaptor.getValue(), contains(1L, 2L));
+        assertThat(pendingCaptor.getValue(), empty());
+    }
+
+    @Test
+    public void givenAFailingEvent_whenDispatched_thenItIsRetriedLaterAndTheNextChangesOfTheSameStoreWait() {
+        var failing = event(1L, 7L, StoreOutboxEvent.Type.CREATED, "TONSTAD");
+        var sameStore = event(2L, 7L, StoreOutboxEvent.Type.UPDATED, "TONSTAD");
+        var otherStore = event(3L, 8L, StoreOutboxEvent.Type.CREATED, "KALLAX");
+        when(storeOutboxRepository.claimNextBatch(10, LEASE)).thenReturn(List.of(failing, sameStore, otherStore));
+        doThrow(new RuntimeException("Boom !!!")).when(legacyStoreManagerGateway).createStoreOnLegacySystem(argThat(store -> "TONSTAD".equals(store.name)));
+
+        dispatcher.dispatch();
+
+        verify(legacyStoreManagerGateway, never()).updateStoreOnLegacySystem(any());
+        verify(storeOutboxRepository).complete(deliveredCaptor.capture(), pendingCaptor.capture());
+        assertThat(deliveredCaptor.getValue(), contains(3L));
+        // the later change of the same store is given back untouched, to be sent after the retry
+        assertThat(pendingCaptor.getValue(), contains(failing, sameStore));
+        assertThat(sameStore.attempts, is(0));
+        assertThat(sameStore.nextAttemptAt, nullValue());
+        assertThat(failing.attempts, is(1));
+        assertThat(failing.nextAttemptAt, notNullValue());
+        assertThat(failing.failedAt, nullValue());
+    }
+
+    @Test
+    public void givenAnEventWaitingForItsRetry_whenDispatched_thenTheStoreIsHeldBack() {
+        var waiting = event(1L, 7L, StoreOutboxEvent.Type.CREATED, "TONSTAD");
+        waiting.attempts = 1;
+        waiting.nextAttemptAt = LocalDateTime.now().plusMinutes(1);
+        var sameStore = event(2L, 7L, StoreOutboxEvent.Type.UPDATED, "TONSTAD");
+        when(storeOutboxRepository.claimNextBatch(10, LEASE)).thenReturn(List.of(waiting, sameStore));
+
+        assertThat(dispatcher.dispatch(), is(0));
+
+        verify(legacyStoreManagerGateway, never()).createStoreOnLegacySystem(any());
+        verify(legacyStoreManagerGateway, never()).updateStoreOnLegacySystem(any());
+        verify(storeOutboxRepository).complete(deliveredCaptor.capture(), pendingCaptor.capture());
+        assertThat(pendingCaptor.getValue(), contains(waiting, sameStore));
+    }
+
+    @Test
+    public void givenFullBatches_whenScheduled_thenTheyAreDrainedUntilOneIsNotFull() {
+        var first = event(1L, 7L, StoreOutboxEvent.Type.CREATED, "TONSTAD");
+        var second = event(2L, 8L, StoreOutboxEvent.Type.CREATED, "KALLAX");
+        dispatcher = new StoreOutboxDispatcher(storeOutboxRepository, legacyStoreManagerGateway, 1, 3, Duration.ofSeconds(1), LEASE);
+        when(storeOutboxRepository.claimNextBatch(1, LEASE)).thenReturn(List.of(first), List.of(second), List.of());
+
+        dispatcher.scheduledDispatch();
+
+        verify(storeOutboxRepository, times(3)).claimNextBatch(1, LEASE);
+        verify(legacyStoreManagerGateway, times(2)).createStoreOnLegacySystem(any());
+    }
+
+    @Test
+    public void givenAnEventFailingTooManyTimes_whenDispatched_thenItIsGivenUp() {
+        var failing = event(1L, 7L, StoreOutboxEvent.Type.CREATED, "TONSTAD");
+        failing.attempts = 2;
+        when(storeOutboxRepository.claimNextBatch(10, LEASE)).thenReturn(List.of(failing));
+        doThrow(new RuntimeException("Boom !!!")).when(legacyStoreManagerGateway).createStoreOnLegacySystem(any());
+
+        dispatcher.dispatch();
+
+        assertThat(failing.attempts, is(3));
+        assertThat(failing.failedAt, notNullValue());
+    }
+
+    private static StoreOutboxEvent event(Long id, Long storeId, StoreOutboxEvent.Type type, String name) {
+        var store = new Store(name);
+        store.id = storeId;
+        var event = new StoreOutboxEvent(type, store);
+        event.id = id;
+        return event;
+    }
+}
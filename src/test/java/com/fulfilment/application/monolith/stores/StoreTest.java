@@ -38,7 +38,7 @@ public class StoreTest {
 
 
     @Test
-    public void testGivenASuccessfullOnStorePersistThenThereIsOneInteractWithLegacyStoreManagerGateway() throws URISyntaxException {
+    public void testGivenASuccessfullOnStorePersistThenTheChangeIsWrittenToTheOutboxAndNotSentOnTheRequestThread() throws URISyntaxException {
         var uriInfo = mock(UriInfo.class);
         var absolutePathBuilder = mock(UriBuilder.class);
         when(uriInfo.getAbsolutePathBuilder()).thenReturn(absolutePathBuilder);
@@ -51,7 +51,10 @@ public class StoreTest {
         var store = new Store();
 
         storeResource.create(store, uriInfo);
-        verify(legacyStoreManagerGateway).createStoreOnLegacySystem(store);
+        verify(session).persist(argThat((Object event) -> event instanceof StoreOutboxEvent
+                && ((StoreOutboxEvent) event).type == StoreOutboxEvent.Type.CREATED
+                && ((StoreOutboxEvent) event).storeId == 1L));
+        verifyNoInteractions(legacyStoreManagerGateway);
     }
 
 }
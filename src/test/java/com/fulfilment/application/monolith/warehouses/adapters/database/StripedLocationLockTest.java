@@ -0,0 +1,169 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class StripedLocationLockTest {
+
+  private final ThreadLocalTransactions transactions = new ThreadLocalTransactions();
+  private final EntityManager entityManager = mock(EntityManager.class, RETURNS_DEEP_STUBS);
+  private ExecutorService executor;
+  private StripedLocationLock locationLock;
+
+  @BeforeEach
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+    locationLock = new StripedLocationLock(entityManager, transactions, 64, Duration.ofMillis(200));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testWhenTheSameLocationIsLockedConcurrentlyThenTheSecondWaitsForTheFirstToComplete() throws Exception {
+    locationLock.lock(List.of("AMSTERDAM-001"));
+
+    var second = CompletableFuture.runAsync(() -> {
+      locationLock.lock(List.of("AMSTERDAM-001"));
+      transactions.complete();
+    }, executor);
+    assertThrows(TimeoutException.class, () -> second.get(50, TimeUnit.MILLISECONDS));
+
+    transactions.complete();
+    second.get(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testWhenDifferentLocationsAreLockedConcurrentlyThenTheyDoNotWait() throws Exception {
+    var amsterdam = "AMSTERDAM-001";
+    var zwolle = "ZWOLLE-001";
+    assertNotEquals(locationLock.stripeOf(amsterdam), locationLock.stripeOf(zwolle));
+    locationLock.lock(List.of(amsterdam));
+
+    CompletableFuture.runAsync(() -> {
+      locationLock.lock(List.of(zwolle));
+      transactions.complete();
+    }, executor).get(1, TimeUnit.SECONDS);
+
+    transactions.complete();
+  }
+
+  @Test
+  public void testWhenTheLocationIsHeldLongerThanTheTimeoutThenTheWaiterGivesUp() throws Exception {
+    locationLock.lock(List.of("AMSTERDAM-001"));
+
+    var second = CompletableFuture.runAsync(() -> {
+      try {
+        locationLock.lock(List.of("AMSTERDAM-001"));
+      } finally {
+        transactions.complete();
+      }
+    }, executor);
+
+    var failure = assertThrows(Exception.class, () -> second.get(1, TimeUnit.SECONDS));
+    assertEquals(LockTimeoutException.class, failure.getCause().getClass());
+    transactions.complete();
+  }
+
+  @Test
+  public void testWhenATransactionLocksTheSameLocationTwiceThenItDoesNotBlockItself() {
+    locationLock.lock(List.of("AMSTERDAM-001", "AMSTERDAM-001"));
+    locationLock.lock(List.of("AMSTERDAM-001"));
+
+    // one advisory lock per call, PostgreSQL counts them and releases all at commit
+    verify(entityManager, times(2)).createNativeQuery(anyString());
+    transactions.complete();
+    assertFalse(transactions.hasResources());
+  }
+
+  @Test
+  public void testWhenATransactionLocksAnotherLocationInALaterCallThenItFails() {
+    locationLock.lock(List.of("ZWOLLE-001"));
+
+    // taken after ZWOLLE-001, out of the order that keeps transactions from deadlocking
+    assertThrows(IllegalStateException.class, () -> locationLock.lock(List.of("AMSTERDAM-001", "ZWOLLE-001")));
+    transactions.complete();
+    locationLock.lock(List.of("AMSTERDAM-001", "ZWOLLE-001"));
+    transactions.complete();
+  }
+
+  // one transaction per thread, completed explicitly as the transaction manager would on commit
+  private static class ThreadLocalTransactions implements TransactionSynchronizationRegistry {
+
+    private final ThreadLocal<Map<Object, Object>> resources = ThreadLocal.withInitial(HashMap::new);
+    private final ThreadLocal<List<Synchronization>> synchronizations = ThreadLocal.withInitial(ArrayList::new);
+
+    void complete() {
+      synchronizations.get().forEach(synchronization -> synchronization.afterCompletion(Status.STATUS_COMMITTED));
+      synchronizations.remove();
+      resources.remove();
+    }
+
+    boolean hasResources() {
+      return !resources.get().isEmpty();
+    }
+
+    @Override
+    public Object getTransactionKey() {
+      return Thread.currentThread();
+    }
+
+    @Override
+    public void putResource(Object key, Object value) {
+      resources.get().put(key, value);
+    }
+
+    @Override
+    public Object getResource(Object key) {
+      return resources.get().get(key);
+    }
+
+    @Override
+    public void registerInterposedSynchronization(Synchronization sync) {
+      synchronizations.get().add(sync);
+    }
+
+    @Override
+    public int getTransactionStatus() {
+      return Status.STATUS_ACTIVE;
+    }
+
+    @Override
+    public void setRollbackOnly() {
+    }
+
+    @Override
+    public boolean getRollbackOnly() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,250 @@
+package com.fulfilment.application.monolith.warehouses.adapters.embedded;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import com.fulfilment.application.monolith.warehouses.repository.WarehouseStoreBehaviour;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+// the store behaviour without a database, then what the log adds: recovery, snapshots, torn records and rollbacks
+public class EmbeddedWarehouseStoreTest extends WarehouseStoreBehaviour {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedWarehouseStore store;
+
+    @BeforeEach
+    public void openAndSeed() throws IOException {
+        store = new EmbeddedWarehouseStore(null, directory, 1024, false);
+        store.create(warehouse("MWH.001", "ZWOLLE-001", 100, 10));
+        store.create(warehouse("MWH.012", "AMSTERDAM-001", 50, 5));
+        store.create(warehouse("MWH.023", "TILBURG-001", 30, 27));
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        store.close();
+    }
+
+    @Override
+    protected WarehouseStore store() {
+        return store;
+    }
+
+    @Override
+    protected void flush() {
+    }
+
+    @Test
+    public void testApiWarehousesArePagedByBusinessUnitCode() {
+        var firstPage = store.getApiWarehousesAfter(null, 2);
+        assertThat(firstPage.stream().map(w -> w.getBusinessUnitCode()).toList(), contains("MWH.001", "MWH.012"));
+        assertThat(firstPage.get(0).getLocation(), is("ZWOLLE-001"));
+
+        assertThat(store.getApiWarehousesAfter("MWH.012", 2).stream().map(w -> w.getBusinessUnitCode()).toList(), contains("MWH.023"));
+        try (var all = store.streamApiWarehouses()) {
+            assertThat(all.count(), is(3L));
+        }
+    }
+
+    @Test
+    public void testReopeningRecoversTheWarehouses() throws IOException {
+        store.update(store.findByBusinessUnitCode("MWH.012").orElseThrow());
+        store.create(warehouse("MWH.012", "ZWOLLE-001", 40, 4));
+
+        reopen();
+
+        var replacement = store.findByBusinessUnitCode("MWH.012").orElseThrow();
+        assertThat(replacement.location, is("ZWOLLE-001"));
+        assertThat(replacement.version, is(0L));
+        assertThat(store.getOccupancyByLocation("ZWOLLE-001").totalCapacity, is(140L));
+        assertThat(store.getOccupancyByLocation("AMSTERDAM-001").numberOfWarehouses, is(0L));
+        assertThat(store.getAll(), hasSize(3));
+    }
+
+    @Test
+    public void testRemovedWarehouseStaysRemovedAfterReopening() throws IOException {
+        store.remove(store.findByBusinessUnitCode("MWH.012").orElseThrow());
+
+        reopen();
+
+        assertThat(store.findByBusinessUnitCode("MWH.012").isPresent(), is(false));
+        assertThat(store.getOccupancyByLocation("AMSTERDAM-001").numberOfWarehouses, is(0L));
+    }
+
+    @Test
+    public void testSnapshotReplacesTheSegmentsItHolds() throws IOException {
+        for (int i = 0; i < 40; i++) {
+            store.create(warehouse(String.format("MWH.1%02d", i), "UTRECHT-001", 1, 1));
+        }
+        store.update(store.findByBusinessUnitCode("MWH.001").orElseThrow());
+
+        store.snapshot();
+        store.create(warehouse("MWH.200", "UTRECHT-001", 1, 1));
+        reopen();
+
+        assertThat(files("snapshot-"), is(1L));
+        assertThat(files("warehouses-"), is(1L));
+        assertThat(store.findByBusinessUnitCode("MWH.001").isPresent(), is(false));
+        assertThat(store.getOccupancyByLocation("UTRECHT-001").numberOfWarehouses, is(41L));
+        assertThat(store.getAll(), hasSize(43));
+    }
+
+    @Test
+    public void testTornRecordIsCutOffOnRecovery() throws IOException {
+        store.close();
+        try (Stream<Path> segments = Files.list(directory)) {
+            var last = segments.filter(file -> file.getFileName().toString().startsWith("warehouses-")).sorted()
+                    .reduce((first, second) -> second).orElseThrow();
+            Files.write(last, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        store = new EmbeddedWarehouseStore(null, directory, 1024, false);
+        store.create(warehouse("MWH.200", "UTRECHT-001", 1, 1));
+        reopen();
+
+        assertThat(store.getAll(), hasSize(4));
+        assertThat(store.findByBusinessUnitCode("MWH.200").isPresent(), is(true));
+    }
+
+    @Test
+    public void testRolledBackTransactionIsUndone() throws IOException {
+        var transaction = new FakeTransaction();
+        store = reopen(transaction);
+
+        store.update(store.findByBusinessUnitCode("MWH.023").orElseThrow());
+        store.create(warehouse("MWH.023", "ZWOLLE-001", 20, 2));
+        transaction.complete(Status.STATUS_ROLLEDBACK);
+
+        var warehouse = store.findByBusinessUnitCode("MWH.023").orElseThrow();
+        assertThat(warehouse.location, is("TILBURG-001"));
+        assertThat(store.getOccupancyByLocation("ZWOLLE-001").numberOfWarehouses, is(1L));
+        assertThat(store.getOccupancyByLocation("TILBURG-001").totalStock, is(27L));
+        reopen();
+        assertThat(store.findByBusinessUnitCode("MWH.023").orElseThrow().location, is("TILBURG-001"));
+    }
+
+    @Test
+    public void testTransactionRolledBackAfterBeingLoggedIsUndoneOnRecovery() throws IOException {
+        var transaction = new FakeTransaction();
+        store = reopen(transaction);
+
+        store.create(warehouse("MWH.200", "UTRECHT-001", 1, 1));
+        transaction.beforeCompletion();
+        transaction.complete(Status.STATUS_ROLLEDBACK);
+        reopen();
+
+        assertThat(store.findByBusinessUnitCode("MWH.200").isPresent(), is(false));
+        assertThat(store.getOccupancyByLocation("UTRECHT-001").numberOfWarehouses, is(0L));
+    }
+
+    @Test
+    public void testChangesOfATransactionAreLoggedWhenItCommits() throws IOException {
+        var transaction = new FakeTransaction();
+        store = reopen(transaction);
+
+        var loggedBefore = loggedBytes();
+        store.create(warehouse("MWH.200", "UTRECHT-001", 1, 1));
+        assertThat(loggedBytes(), is(loggedBefore));
+        transaction.beforeCompletion();
+        transaction.complete(Status.STATUS_COMMITTED);
+        reopen();
+
+        assertThat(store.findByBusinessUnitCode("MWH.200").isPresent(), is(true));
+    }
+
+    private void reopen() throws IOException {
+        store = reopen(null);
+    }
+
+    private EmbeddedWarehouseStore reopen(TransactionSynchronizationRegistry transactions) throws IOException {
+        store.close();
+        return new EmbeddedWarehouseStore(transactions, directory, 1024, false);
+    }
+
+    private long files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)).count();
+        }
+    }
+
+    private long loggedBytes() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static Warehouse warehouse(String businessUnitCode, String location, int capacity, int stock) {
+        var warehouse = new Warehouse();
+        warehouse.businessUnitCode = businessUnitCode;
+        warehouse.location = location;
+        warehouse.capacity = capacity;
+        warehouse.stock = stock;
+        return warehouse;
+    }
+
+    // one transaction, completed by the test the way the transaction manager would
+    private static class FakeTransaction implements TransactionSynchronizationRegistry {
+        private final Map<Object, Object> resources = new HashMap<>();
+        private Synchronization synchronization;
+
+        void beforeCompletion() {
+            synchronization.beforeCompletion();
+        }
+
+        void complete(int status) {
+            synchronization.afterCompletion(status);
+        }
+
+        @Override
+        public Object getTransactionKey() {
+            return this;
+        }
+
+        @Override
+        public void putResource(Object key, Object value) {
+            resources.put(key, value);
+        }
+
+        @Override
+        public Object getResource(Object key) {
+            return resources.get(key);
+        }
+
+        @Override
+        public void registerInterposedSynchronization(Synchronization sync) {
+            synchronization = sync;
+        }
+
+        @Override
+        public int getTransactionStatus() {
+            return Status.STATUS_ACTIVE;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+        }
+
+        @Override
+        public boolean getRollbackOnly() {
+            return false;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.fulfilment.application.monolith.warehouses.adapters.restapi;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.is;
 import static org.jboss.resteasy.reactive.RestResponse.StatusCode.CREATED;
@@ -11,6 +12,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import com.warehouse.api.beans.Warehouse;
 import io.quarkus.test.junit.QuarkusIntegrationTest;
 import io.restassured.http.ContentType;
+import java.util.List;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -36,6 +38,53 @@ public class WarehouseEndpointIT {
         .body(containsString("MWH.001"), containsString("MWH.012"), containsString("MWH.023"));
   }
 
+  @Test
+  @Order(1)
+  public void testPagedListWarehouses() {
+
+    final String path = "warehouse";
+
+    given()
+        .queryParam("limit", 1)
+        .when()
+        .get(path)
+        .then()
+        .statusCode(200)
+        .body("size()", is(1))
+        .body("[0].businessUnitCode", is("MWH.001"));
+
+    given()
+        .queryParam("after", "MWH.001")
+        .queryParam("limit", 1)
+        .when()
+        .get(path)
+        .then()
+        .statusCode(200)
+        .body("size()", is(1))
+        .body("[0].businessUnitCode", is("MWH.012"));
+
+    given()
+        .queryParam("limit", 0)
+        .when()
+        .get(path)
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  @Order(1)
+  public void testStreamAllWarehouses() {
+
+    final String path = "warehouse/export";
+
+    given()
+        .when()
+        .get(path)
+        .then()
+        .statusCode(200)
+        .body("businessUnitCode", hasItems("MWH.001", "MWH.012", "MWH.023"));
+  }
+
   @Test
   @Order(1)
   public void testSimpleFindOfAWarehouse() {
@@ -50,6 +99,33 @@ public class WarehouseEndpointIT {
             .body("businessUnitCode", is("MWH.001")).body("location", is("ZWOLLE-001")).body("stock", is(10));
   }
 
+  @Test
+  @Order(1)
+  public void testFindOfAnUnchangedWarehouseIsNotModified() {
+
+    final String path = "warehouse/MWH.012";
+
+    String etag = given().when().get(path).then().statusCode(200).extract().header("ETag");
+    assertNotNull(etag);
+
+    given()
+            .header("If-None-Match", etag)
+            .when()
+            .get(path)
+            .then()
+            .statusCode(304)
+            .header("ETag", is(etag));
+
+    given()
+            .header("If-None-Match", "\"0-0\"")
+            .when()
+            .get(path)
+            .then()
+            .statusCode(200)
+            .header("ETag", is(etag))
+            .body("businessUnitCode", is("MWH.012"));
+  }
+
   @Test
   public void testSimpleFindOfAWarehouseNotFound() {
 
@@ -62,6 +138,18 @@ public class WarehouseEndpointIT {
             .statusCode(404);
   }
 
+  @Test
+  public void testArchiveOfAWarehouseNotFound() {
+
+    final String path = "warehouse/FAKE_BU";
+
+    given()
+            .when()
+            .delete(path)
+            .then()
+            .statusCode(404);
+  }
+
   @Test
   public void testSimpleCreateWarehouse() {
 
@@ -108,7 +196,8 @@ public class WarehouseEndpointIT {
             .post(path)
             .then()
             .statusCode(400)
-            .body("error", is("Warehouse already exists"));
+            .body("error", is("Warehouse already exists"))
+            .body("errorCode", is("ALREADY_EXISTS"));
   }
 
   @Test
@@ -186,4 +275,32 @@ public class WarehouseEndpointIT {
             .then()
             .statusCode(400);
   }
+
+  @Test
+  public void testBatchCreateWarehousesReportsEveryUnit() {
+    final String path = "warehouse/batch";
+
+    final var first = new Warehouse();
+    first.setBusinessUnitCode("BATCH_BU_1");
+    first.setLocation("VETSBY-001");
+    first.setStock(10);
+    first.setCapacity(50);
+
+    final var second = new Warehouse();
+    second.setBusinessUnitCode("BATCH_BU_2");
+    second.setLocation("VETSBY-001");
+    second.setStock(10);
+    second.setCapacity(20);
+
+    given()
+            .body(List.of(first, second))
+            .contentType(ContentType.JSON)
+            .when()
+            .post(path)
+            .then()
+            .statusCode(200)
+            .body("[0].businessUnitCode", is("BATCH_BU_1")).body("[0].created", is(true))
+            .body("[1].businessUnitCode", is("BATCH_BU_2")).body("[1].created", is(false))
+            .body("[1].error", is("Location VETSBY-001 has reached max number of warehouses"));
+  }
 }
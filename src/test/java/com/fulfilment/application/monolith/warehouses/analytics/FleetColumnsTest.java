@@ -0,0 +1,107 @@
+package com.fulfilment.application.monolith.warehouses.analytics;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FleetColumnsTest {
+
+    private final FleetColumns fleetColumns = new FleetColumns(null);
+
+    @Test
+    public void testUtilisationSumsUpEveryLocation() {
+        fleetColumns.apply(WarehouseChanges.created(List.of(
+                warehouse("MWH.001", "ZWOLLE-001", 100, 10),
+                warehouse("MWH.012", "AMSTERDAM-001", 50, 5),
+                warehouse("MWH.013", "AMSTERDAM-001", 50, 45))));
+
+        var utilisation = fleetColumns.utilisation();
+
+        assertThat(utilisation.warehouses, is(3L));
+        assertThat(utilisation.totalCapacity, is(200L));
+        assertThat(utilisation.totalStock, is(60L));
+        assertThat(utilisation.utilisation, closeTo(0.3, 1e-9));
+        assertThat(utilisation.locations.stream().map(l -> l.location).toList(), contains("AMSTERDAM-001", "ZWOLLE-001"));
+        assertThat(utilisation.locations.get(0).warehouses, is(2L));
+        assertThat(utilisation.locations.get(0).utilisation, closeTo(0.5, 1e-9));
+    }
+
+    @Test
+    public void testReplacementAndArchivingAreFollowed() {
+        var old = warehouse("MWH.001", "ZWOLLE-001", 100, 10);
+        var other = warehouse("MWH.012", "AMSTERDAM-001", 50, 5);
+        fleetColumns.apply(WarehouseChanges.created(List.of(old, other)));
+
+        var replacement = warehouse("MWH.001", "TILBURG-001", 30, 10);
+        replacement.createdAt = old.createdAt.plusSeconds(1);
+        fleetColumns.apply(WarehouseChanges.replaced(old, replacement));
+        fleetColumns.apply(WarehouseChanges.archived(other));
+        // observed late: the replacement stays
+        fleetColumns.apply(WarehouseChanges.archived(old));
+
+        var utilisation = fleetColumns.utilisation();
+        assertThat(utilisation.warehouses, is(1L));
+        assertThat(utilisation.locations.stream().map(l -> l.location).toList(), contains("TILBURG-001"));
+        assertThat(utilisation.totalCapacity, is(30L));
+    }
+
+    @Test
+    public void testWarehouseReadBackFromTheDatabaseIsArchived() {
+        var created = warehouse("MWH.001", "ZWOLLE-001", 100, 10);
+        created.createdAt = LocalDateTime.of(2024, 7, 1, 10, 15, 26, 418471870);
+        fleetColumns.apply(WarehouseChanges.created(List.of(created)));
+
+        // another instance, as the archive use case loads it, with the microseconds of the timestamp column
+        var readBack = warehouse("MWH.001", "ZWOLLE-001", 100, 10);
+        readBack.createdAt = LocalDateTime.of(2024, 7, 1, 10, 15, 26, 418471000);
+        fleetColumns.apply(WarehouseChanges.archived(readBack));
+
+        assertThat(fleetColumns.utilisation().warehouses, is(0L));
+    }
+
+    @Test
+    public void testAboveFillCountsAndListsUpToTheLimit() {
+        fleetColumns.apply(WarehouseChanges.created(List.of(
+                warehouse("MWH.001", "ZWOLLE-001", 100, 95),
+                warehouse("MWH.002", "ZWOLLE-001", 100, 90),
+                warehouse("MWH.003", "ZWOLLE-001", 10, 10),
+                warehouse("MWH.004", "ZWOLLE-001", 0, 5))));
+
+        var report = fleetColumns.aboveFill(0.9, 1);
+
+        assertThat(report.count, is(2L));
+        assertThat(report.businessUnitCodes, hasSize(1));
+        assertThat(report.businessUnitCodes.get(0), is(oneOf("MWH.001", "MWH.003")));
+    }
+
+    @Test
+    public void testAboveFillScansLargeFleetsInParallel() {
+        var warehouses = new ArrayList<Warehouse>();
+        for (int i = 0; i < FleetColumns.PARALLEL_THRESHOLD + 10; i++) {
+            warehouses.add(warehouse("MWH." + i, "LOCATION-" + (i % 100), 100, i % 100));
+        }
+        fleetColumns.apply(WarehouseChanges.created(warehouses));
+
+        var report = fleetColumns.aboveFill(0.9, 10);
+
+        assertThat(report.count, is(warehouses.stream().filter(w -> w.stock > 90).count()));
+        assertThat(report.businessUnitCodes, hasSize(10));
+    }
+
+    private static Warehouse warehouse(String businessUnitCode, String location, int capacity, int stock) {
+        var warehouse = new Warehouse();
+        warehouse.businessUnitCode = businessUnitCode;
+        warehouse.location = location;
+        warehouse.capacity = capacity;
+        warehouse.stock = stock;
+        warehouse.createdAt = LocalDateTime.of(2024, 7, 1, 0, 0);
+        return warehouse;
+    }
+}
@@ -1,7 +1,9 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import jakarta.enterprise.event.Event;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,7 +13,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,6 +25,8 @@ public class ArchiveWarehouseUseCaseTest {
     private WarehouseStore warehouseStore;
     @Captor
     private ArgumentCaptor<Warehouse> argCaptor;
+    @Mock
+    private Event<WarehouseChanges> warehouseChanges;
     @InjectMocks
     private ArchiveWarehouseUseCase archiveWarehouseUseCase;
 
@@ -31,6 +38,7 @@ public class ArchiveWarehouseUseCaseTest {
 
         verify(warehouseStore).update(argCaptor.capture());
         assertTrue(argCaptor.getValue().archivedAt != null);
+        verify(warehouseChanges).fire(argThat(changes -> changes.archived.equals(List.of(warehouse)) && changes.created.isEmpty()));
 
     }
     @Test
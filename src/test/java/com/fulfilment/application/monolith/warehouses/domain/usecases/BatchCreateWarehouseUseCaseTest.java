@@ -0,0 +1,143 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import jakarta.enterprise.event.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchCreateWarehouseUseCaseTest {
+    @Mock
+    private WarehouseStore warehouseStore;
+    @Mock
+    private LocationResolver locationResolver;
+    @Mock
+    private LocationLock locationLock;
+    @Captor
+    private ArgumentCaptor<List<Warehouse>> argCaptor;
+    @Mock
+    private Event<WarehouseChanges> warehouseChanges;
+    @InjectMocks
+    private BatchCreateWarehouseUseCase batchCreateWarehouseUseCase;
+
+    @Test
+    public void givenWarehouses_whenAllValidationSucceed_thenAllAreCreatedTogether() {
+        var first = getWarehouse("BU1", 100);
+        var second = getWarehouse("BU2", 100);
+        var location = new Location("AMS", 3, 400);
+
+        when(locationResolver.resolveByIdentifier("AMS")).thenReturn(location);
+        when(warehouseStore.findActiveBusinessUnitCodes(anyCollection())).thenReturn(Set.of());
+        when(warehouseStore.getOccupancyByLocation("AMS")).thenReturn(new LocationOccupancy(1, 200, 0));
+
+        var outcomes = batchCreateWarehouseUseCase.createAll(List.of(first, second));
+        assertTrue(outcomes.get(0).isRight(), "Validation exception");
+        assertTrue(outcomes.get(1).isRight(), "Validation exception");
+        verify(warehouseStore).createAll(argCaptor.capture());
+        assertThat(argCaptor.getValue(), contains(first, second));
+        // the occupancy of a location is read once for the whole batch
+        verify(warehouseStore, times(1)).getOccupancyByLocation("AMS");
+        // and its lock taken once for the whole batch
+        verify(locationLock, times(1)).lock(Set.of("AMS"));
+    }
+
+    @Test
+    public void givenWarehouses_whenTheBatchItselfOverrunsTheLocationCapacity_thenOnlyTheOverrunningOnesAreRejected() {
+        var first = getWarehouse("BU1", 100);
+        var second = getWarehouse("BU2", 150);
+        var third = getWarehouse("BU3", 50);
+        var location = new Location("AMS", 5, 400);
+
+        when(locationResolver.resolveByIdentifier("AMS")).thenReturn(location);
+        when(warehouseStore.findActiveBusinessUnitCodes(anyCollection())).thenReturn(Set.of());
+        when(warehouseStore.getOccupancyByLocation("AMS")).thenReturn(new LocationOccupancy(1, 200, 0));
+
+        var outcomes = batchCreateWarehouseUseCase.createAll(List.of(first, second, third));
+        assertTrue(outcomes.get(0).isRight(), "Validation exception");
+        assertThat(outcomes.get(1).getLeft().message(), equalTo("Location AMS has reached max capacity"));
+        assertTrue(outcomes.get(2).isRight(), "Validation exception");
+        verify(warehouseStore).createAll(argCaptor.capture());
+        assertThat(argCaptor.getValue(), contains(first, third));
+    }
+
+    @Test
+    public void givenWarehouses_whenBusinessUnitIsDuplicatedOrAlreadyExist_thenTheyAreRejected() {
+        var existing = getWarehouse("BU1", 10);
+        var first = getWarehouse("BU2", 10);
+        var duplicated = getWarehouse("BU2", 10);
+        var location = new Location("AMS", 5, 400);
+
+        when(locationResolver.resolveByIdentifier("AMS")).thenReturn(location);
+        when(warehouseStore.findActiveBusinessUnitCodes(anyCollection())).thenReturn(Set.of("BU1"));
+        when(warehouseStore.getOccupancyByLocation("AMS")).thenReturn(LocationOccupancy.EMPTY);
+
+        var outcomes = batchCreateWarehouseUseCase.createAll(List.of(existing, first, duplicated));
+        assertThat(outcomes.get(0).getLeft().message(), equalTo("Warehouse already exists"));
+        assertTrue(outcomes.get(1).isRight(), "Validation exception");
+        assertThat(outcomes.get(2).getLeft().message(), equalTo("Warehouse already exists"));
+    }
+
+    @Test
+    public void givenWarehouses_whenMaxNumberOfWarehousesIsReachedWithinTheBatch_thenReturnAValidationError() {
+        var first = getWarehouse("BU1", 10);
+        var second = getWarehouse("BU2", 10);
+        var location = new Location("AMS", 2, 400);
+
+        when(locationResolver.resolveByIdentifier("AMS")).thenReturn(location);
+        when(warehouseStore.findActiveBusinessUnitCodes(anyCollection())).thenReturn(Set.of());
+        when(warehouseStore.getOccupancyByLocation("AMS")).thenReturn(new LocationOccupancy(1, 10, 0));
+
+        var outcomes = batchCreateWarehouseUseCase.createAll(List.of(first, second));
+        assertTrue(outcomes.get(0).isRight(), "Validation exception");
+        assertThat(outcomes.get(1).getLeft().message(), equalTo("Location AMS has reached max number of warehouses"));
+    }
+
+    @Test
+    public void givenWarehouses_whenAllValidationFail_thenNothingIsPersisted() {
+        var warehouse = getWarehouse("BU1", 10);
+        warehouse.stock = 11;
+        var unknownLocation = getWarehouse("BU2", 10);
+        unknownLocation.location = "UNKNOWN";
+
+        when(warehouseStore.findActiveBusinessUnitCodes(anyCollection())).thenReturn(Set.of());
+
+        var outcomes = batchCreateWarehouseUseCase.createAll(List.of(warehouse, unknownLocation));
+        assertThat(outcomes.get(0).getLeft().message(), equalTo("Cannot create a warehouse with stock greater than capacity"));
+        assertThat(outcomes.get(1).getLeft().message(), equalTo("Location not found"));
+        verify(warehouseStore, never()).createAll(any());
+    }
+
+    private static Warehouse getWarehouse(String businessUnitCode, int capacity) {
+        var warehouse = new Warehouse();
+        warehouse.location = "AMS";
+        warehouse.businessUnitCode = businessUnitCode;
+        warehouse.capacity = capacity;
+        warehouse.stock = 0;
+        return warehouse;
+    }
+}
@@ -1,9 +1,15 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.ConditionalCreateOutcome;
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseError;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import jakarta.enterprise.event.Event;
 
 
 import org.junit.jupiter.api.Test;
@@ -13,6 +19,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -24,7 +31,11 @@ public class CreateWarehouseUseCaseTest {
     private WarehouseStore warehouseStore;
     @Mock
     private LocationResolver locationResolver;
+    @Mock
+    private LocationLock locationLock;
 
+    @Mock
+    private Event<WarehouseChanges> warehouseChanges;
     @InjectMocks
     private CreateWarehouseUseCase createWarehouseUseCase;
 
@@ -32,37 +43,56 @@ public class CreateWarehouseUseCaseTest {
     public void givenWarehouse_whenAllValidationSucceed_thenReturnWarehouse() {
         var warehouse = getWarehouse();
 
-        List<Warehouse> warehousesPerLocation = getWarehousesAlreadyPresent();
+        LocationOccupancy occupancy = getOccupancyAlreadyPresent();
 
         var location = new Location("AMS", 3, 1000);
 
         when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(null);
-        when(warehouseStore.getAllByLocation(warehouse.location)).thenReturn(warehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(Optional.empty());
+        when(warehouseStore.getOccupancyByLocation(warehouse.location)).thenReturn(occupancy);
         when(warehouseStore.create(warehouse)).thenReturn(warehouse);
 
         var warehouseCreated = createWarehouseUseCase.create(warehouse);
         assertTrue(warehouseCreated.isRight(), "Validation exception");
         assertThat(warehouseCreated.get(), equalTo((warehouse)));
+        verify(warehouseChanges).fire(argThat(changes -> changes.created.equals(List.of(warehouse))));
     }
 
     @Test
     public void givenWarehouse_whenAllValidationSucceedWithExactCapacity_thenReturnWarehouse() {
         var warehouse = getWarehouse();
 
-        List<Warehouse> warehousesPerLocation = getWarehousesAlreadyPresent();
+        LocationOccupancy occupancy = getOccupancyAlreadyPresent();
 
         var location = new Location("AMS", 3, 400);
 
         when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(null);
-        when(warehouseStore.getAllByLocation(warehouse.location)).thenReturn(warehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(Optional.empty());
+        when(warehouseStore.getOccupancyByLocation(warehouse.location)).thenReturn(occupancy);
         when(warehouseStore.create(warehouse)).thenReturn(warehouse);
 
         var warehouseCreated = createWarehouseUseCase.create(warehouse);
         assertTrue(warehouseCreated.isRight(), "Validation exception");
         assertThat(warehouseCreated.get(), equalTo((warehouse)));
     }
+    @Test
+    public void givenWarehouse_whenCreated_thenTheLocationIsLockedBeforeItsOccupancyIsRead() {
+        var warehouse = getWarehouse();
+        var location = new Location("AMS", 3, 1000);
+
+        when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(location);
+        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(Optional.empty());
+        when(warehouseStore.getOccupancyByLocation(warehouse.location)).thenReturn(getOccupancyAlreadyPresent());
+        when(warehouseStore.create(warehouse)).thenReturn(warehouse);
+
+        createWarehouseUseCase.create(warehouse);
+
+        var inOrder = inOrder(locationLock, warehouseStore);
+        inOrder.verify(locationLock).lock(List.of("AMS"));
+        inOrder.verify(warehouseStore).getOccupancyByLocation("AMS");
+        inOrder.verify(warehouseStore).create(warehouse);
+    }
+
     @Test
     public void givenWarehouse_whenBusinessUnitAlreadyExist_thenReturnAValidationError() {
         var warehouse = getWarehouse();
@@ -70,27 +100,27 @@ public class CreateWarehouseUseCaseTest {
         var location = new Location("AMS", 3, 400);
 
         when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(warehouse);
+        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(Optional.of(warehouse));
 
         var warehouseCreated = createWarehouseUseCase.create(warehouse);
         assertTrue(warehouseCreated.isLeft(), "Validation exception");
-        assertThat(warehouseCreated.getLeft(), equalTo(("Warehouse already exists")));
+        assertThat(warehouseCreated.getLeft().message(), equalTo(("Warehouse already exists")));
     }
     @Test
     public void givenWarehouse_whenMaxNumberOfWarehousesPerLocationIsAlreadyReached_thenReturnAValidationError() {
         var warehouse = getWarehouse();
 
-        List<Warehouse> warehousesPerLocation = getWarehousesAlreadyPresent();
+        LocationOccupancy occupancy = getOccupancyAlreadyPresent();
 
         var location = new Location("AMS", 2, 400);
 
         when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(null);
-        when(warehouseStore.getAllByLocation(warehouse.location)).thenReturn(warehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(Optional.empty());
+        when(warehouseStore.getOccupancyByLocation(warehouse.location)).thenReturn(occupancy);
 
         var warehouseCreated = createWarehouseUseCase.create(warehouse);
         assertTrue(warehouseCreated.isLeft(), "Validation exception");
-        assertThat(warehouseCreated.getLeft(), equalTo(("Location AMS has reached max number of warehouses")));
+        assertThat(warehouseCreated.getLeft().message(), equalTo(("Location AMS has reached max number of warehouses")));
     }
 
     @Test
@@ -98,34 +128,34 @@ public class CreateWarehouseUseCaseTest {
         var warehouse = getWarehouse();
         warehouse.capacity = 0;
         warehouse.stock = 0;
-        List<Warehouse> warehousesPerLocation = getWarehousesAlreadyPresent();
+        LocationOccupancy occupancy = getOccupancyAlreadyPresent();
 
         var location = new Location("AMS", 3, 200);
 
         when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(null);
-        when(warehouseStore.getAllByLocation(warehouse.location)).thenReturn(warehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(Optional.empty());
+        when(warehouseStore.getOccupancyByLocation(warehouse.location)).thenReturn(occupancy);
 
         var warehouseCreated = createWarehouseUseCase.create(warehouse);
         assertTrue(warehouseCreated.isLeft(), "Validation exception");
-        assertThat(warehouseCreated.getLeft(), equalTo(("Location AMS has reached max capacity")));
+        assertThat(warehouseCreated.getLeft().message(), equalTo(("Location AMS has reached max capacity")));
     }
 
     @Test
     public void givenWarehouse_whenMaxCapacityOfWarehousesPerLocationIsNotReachedButItWillBeReachedWithTheNewWarehosue_thenReturnAValidationError() {
         var warehouse = getWarehouse();
 
-        List<Warehouse> warehousesPerLocation = getWarehousesAlreadyPresent();
+        LocationOccupancy occupancy = getOccupancyAlreadyPresent();
 
         var location = new Location("AMS", 3, 350);
 
         when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(null);
-        when(warehouseStore.getAllByLocation(warehouse.location)).thenReturn(warehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(Optional.empty());
+        when(warehouseStore.getOccupancyByLocation(warehouse.location)).thenReturn(occupancy);
 
         var warehouseCreated = createWarehouseUseCase.create(warehouse);
         assertTrue(warehouseCreated.isLeft(), "Validation exception");
-        assertThat(warehouseCreated.getLeft(), equalTo(("Location AMS has reached max capacity")));
+        assertThat(warehouseCreated.getLeft().message(), equalTo(("Location AMS has reached max capacity")));
     }
 
 
@@ -135,16 +165,78 @@ public class CreateWarehouseUseCaseTest {
         warehouse.stock = warehouse.capacity + 1;
         var warehouseCreated = createWarehouseUseCase.create(warehouse);
         assertTrue(warehouseCreated.isLeft(), "Validation exception");
-        assertThat(warehouseCreated.getLeft(), equalTo(("Cannot create a warehouse with stock greater than capacity")));
+        assertThat(warehouseCreated.getLeft().message(), equalTo(("Cannot create a warehouse with stock greater than capacity")));
+    }
+
+    @Test
+    public void givenWarehouse_whenStockIsGreaterThanCapacity_thenItIsRejectedBeforeReachingTheStore() {
+        var warehouse = getWarehouse();
+        warehouse.stock = warehouse.capacity + 1;
+        var warehouseCreated = createWarehouseUseCase.create(warehouse);
+        assertThat(warehouseCreated.getLeft(), equalTo(WarehouseError.STOCK_GREATER_THAN_CAPACITY));
+        verifyNoInteractions(warehouseStore, locationLock);
+    }
+
+    @Test
+    public void givenWarehouse_whenLocationIsFull_thenTheErrorCodeIsReturned() {
+        var warehouse = getWarehouse();
+
+        when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(new Location("AMS", 2, 1000));
+        when(warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode)).thenReturn(Optional.empty());
+        when(warehouseStore.getOccupancyByLocation(warehouse.location)).thenReturn(getOccupancyAlreadyPresent());
+
+        var warehouseCreated = createWarehouseUseCase.create(warehouse);
+        assertThat(warehouseCreated.getLeft().code, equalTo(WarehouseError.Code.MAX_NUMBER_OF_WAREHOUSES_REACHED));
+        verify(warehouseStore, never()).create(any());
+        verifyNoInteractions(warehouseChanges);
+    }
+
+    @Test
+    public void givenConditionalInsertMode_whenTheStoreInsertsTheWarehouse_thenNothingElseIsRead() {
+        createWarehouseUseCase.mode = CreateWarehouseUseCase.Mode.CONDITIONAL_INSERT;
+        var warehouse = getWarehouse();
+        var location = new Location("AMS", 3, 1000);
+
+        when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(location);
+        when(warehouseStore.createIfWithinLimits(warehouse, 3, 1000))
+                .thenReturn(new ConditionalCreateOutcome(true, false, getOccupancyAlreadyPresent()));
+
+        var warehouseCreated = createWarehouseUseCase.create(warehouse);
+        assertThat(warehouseCreated.get(), equalTo(warehouse));
+        verify(locationLock).lock(List.of("AMS"));
+        verifyNoMoreInteractions(warehouseStore);
+    }
+
+    @Test
+    public void givenConditionalInsertMode_whenTheStoreRefusesTheWarehouse_thenTheFailedCheckIsReturned() {
+        createWarehouseUseCase.mode = CreateWarehouseUseCase.Mode.CONDITIONAL_INSERT;
+        var warehouse = getWarehouse();
+        var location = new Location("AMS", 3, 350);
+
+        when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(location);
+        when(warehouseStore.createIfWithinLimits(warehouse, 3, 350))
+                .thenReturn(new ConditionalCreateOutcome(false, false, getOccupancyAlreadyPresent()));
+
+        var warehouseCreated = createWarehouseUseCase.create(warehouse);
+        assertThat(warehouseCreated.getLeft().message(), equalTo("Location AMS has reached max capacity"));
+    }
+
+    @Test
+    public void givenConditionalInsertMode_whenTheBusinessUnitCodeIsTaken_thenAlreadyExistsIsReturned() {
+        createWarehouseUseCase.mode = CreateWarehouseUseCase.Mode.CONDITIONAL_INSERT;
+        var warehouse = getWarehouse();
+
+        when(locationResolver.resolveByIdentifier(warehouse.location)).thenReturn(new Location("AMS", 1, 100));
+        when(warehouseStore.createIfWithinLimits(warehouse, 1, 100))
+                .thenReturn(new ConditionalCreateOutcome(false, true, getOccupancyAlreadyPresent()));
+
+        var warehouseCreated = createWarehouseUseCase.create(warehouse);
+        assertThat(warehouseCreated.getLeft().message(), equalTo("Warehouse already exists"));
     }
 
-    private static List<Warehouse> getWarehousesAlreadyPresent() {
-        var warehouse01 = new Warehouse();
-        warehouse01.capacity = 100;
-        var warehouse02 = new Warehouse();
-        warehouse02.capacity = 200;
-        List<Warehouse> warehousesPerLocation = List.of(warehouse01, warehouse02);
-        return warehousesPerLocation;
+    private static LocationOccupancy getOccupancyAlreadyPresent() {
+        // two warehouses with capacity 100 and 200
+        return new LocationOccupancy(2, 300, 0);
     }
 
     private static Warehouse getWarehouse() {
@@ -0,0 +1,134 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import com.fulfilment.application.monolith.warehouses.domain.ports.ReactiveWarehouseStore;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.event.Event;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveWarehouseUseCaseTest {
+    @Mock
+    private ReactiveWarehouseStore warehouseStore;
+    @Mock
+    private LocationResolver locationResolver;
+    @Mock
+    private Event<WarehouseChanges> warehouseChanges;
+
+    private ReactiveWarehouseUseCase reactiveWarehouseUseCase;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        reactiveWarehouseUseCase = new ReactiveWarehouseUseCase(warehouseStore, locationResolver, 3, Duration.ofMillis(1), warehouseChanges);
+        // the transaction runs the work on the store itself, again on every subscription
+        when(warehouseStore.withTransaction(any())).thenAnswer(invocation -> Uni.createFrom().deferred(
+            () -> invocation.<Function<ReactiveWarehouseStore, Uni<?>>>getArgument(0).apply(warehouseStore)));
+    }
+
+    @Test
+    public void givenWarehouse_whenAllValidationSucceed_thenItIsCreatedAfterLockingItsLocation() {
+        var warehouse = getWarehouse("BU1", "AMS", 100, 0);
+        when(locationResolver.resolveByIdentifier("AMS")).thenReturn(new Location("AMS", 3, 1000));
+        when(warehouseStore.lockLocations(List.of("AMS"))).thenReturn(Uni.createFrom().voidItem());
+        when(warehouseStore.findByBusinessUnitCode("BU1")).thenReturn(Uni.createFrom().nullItem());
+        when(warehouseStore.getOccupancyByLocation("AMS")).thenReturn(Uni.createFrom().item(new LocationOccupancy(2, 300, 0)));
+        when(warehouseStore.create(warehouse)).thenReturn(Uni.createFrom().item(warehouse));
+
+        var created = reactiveWarehouseUseCase.create(warehouse).await().indefinitely();
+
+        assertTrue(created.isRight(), "Validation exception");
+        var inOrder = inOrder(warehouseStore);
+        inOrder.verify(warehouseStore).lockLocations(List.of("AMS"));
+        inOrder.verify(warehouseStore).getOccupancyByLocation("AMS");
+        inOrder.verify(warehouseStore).create(warehouse);
+    }
+
+    @Test
+    public void givenWarehouse_whenBusinessUnitAlreadyExist_thenReturnAValidationError() {
+        var warehouse = getWarehouse("BU1", "AMS", 100, 0);
+        when(locationResolver.resolveByIdentifier("AMS")).thenReturn(new Location("AMS", 3, 1000));
+        when(warehouseStore.lockLocations(List.of("AMS"))).thenReturn(Uni.createFrom().voidItem());
+        when(warehouseStore.findByBusinessUnitCode("BU1")).thenReturn(Uni.createFrom().item(warehouse));
+
+        var created = reactiveWarehouseUseCase.create(warehouse).await().indefinitely();
+
+        assertThat(created.getLeft().message(), equalTo("Warehouse already exists"));
+        verify(warehouseStore, never()).create(any());
+    }
+
+    @Test
+    public void givenWarehouseReplacement_whenTheNewCapacityOverrunsTheLocation_thenReturnAValidationError() {
+        var oldWarehouse = getWarehouse("BU1", "AMS", 100, 10);
+        var newWarehouse = getWarehouse("BU1", "AMS", 200, 10);
+        when(locationResolver.resolveByIdentifier("AMS")).thenReturn(new Location("AMS", 3, 350));
+        when(warehouseStore.findByBusinessUnitCode("BU1")).thenReturn(Uni.createFrom().item(oldWarehouse));
+        when(warehouseStore.lockLocations(List.of("AMS"))).thenReturn(Uni.createFrom().voidItem());
+        when(warehouseStore.getOccupancyByLocation("AMS")).thenReturn(Uni.createFrom().item(new LocationOccupancy(2, 300, 10)));
+
+        var replaced = reactiveWarehouseUseCase.replace(newWarehouse).await().indefinitely();
+
+        assertThat(replaced.getLeft().message(), equalTo("Location AMS has reached max capacity"));
+    }
+
+    @Test
+    public void givenWarehouseReplacement_whenTheOldWarehouseChangedMeanwhile_thenTheReplacementIsRetried() {
+        var oldWarehouse = getWarehouse("BU1", "AMS", 100, 10);
+        var newWarehouse = getWarehouse("BU1", "AMS", 120, 10);
+        when(locationResolver.resolveByIdentifier("AMS")).thenReturn(new Location("AMS", 3, 1000));
+        when(warehouseStore.findByBusinessUnitCode("BU1")).thenReturn(Uni.createFrom().item(oldWarehouse));
+        when(warehouseStore.lockLocations(List.of("AMS"))).thenReturn(Uni.createFrom().voidItem());
+        when(warehouseStore.getOccupancyByLocation("AMS")).thenReturn(Uni.createFrom().item(new LocationOccupancy(2, 300, 10)));
+        when(warehouseStore.update(oldWarehouse))
+            .thenReturn(Uni.createFrom().failure(new OptimisticLockException()))
+            .thenReturn(Uni.createFrom().voidItem());
+        when(warehouseStore.create(newWarehouse)).thenReturn(Uni.createFrom().item(newWarehouse));
+
+        var replaced = reactiveWarehouseUseCase.replace(newWarehouse).await().indefinitely();
+
+        assertTrue(replaced.isRight(), "Validation exception");
+        verify(warehouseStore, times(2)).update(oldWarehouse);
+        verify(warehouseStore, times(1)).create(newWarehouse);
+    }
+
+    @Test
+    public void givenBusinessUnitCode_whenThereIsNoActiveWarehouse_thenNothingIsArchived() {
+        when(warehouseStore.findByBusinessUnitCode("BU1")).thenReturn(Uni.createFrom().nullItem());
+
+        assertFalse(reactiveWarehouseUseCase.archive("BU1").await().indefinitely());
+        verify(warehouseStore, never()).update(any());
+    }
+
+    private static Warehouse getWarehouse(String businessUnitCode, String location, int capacity, int stock) {
+        var warehouse = new Warehouse();
+        warehouse.businessUnitCode = businessUnitCode;
+        warehouse.location = location;
+        warehouse.capacity = capacity;
+        warehouse.stock = stock;
+        return warehouse;
+    }
+}
@@ -1,9 +1,13 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import jakarta.enterprise.event.Event;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -13,10 +17,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -27,10 +33,14 @@ public class ReplaceWarehouseUseCaseTest {
     private WarehouseStore warehouseStore;
     @Mock
     private LocationResolver locationResolver;
+    @Mock
+    private LocationLock locationLock;
     @Captor
     private ArgumentCaptor<Warehouse> argCaptorForNewWarehouse;
     @Captor
     private ArgumentCaptor<Warehouse> argCaptorForOldWarehouse;
+    @Mock
+    private Event<WarehouseChanges> warehouseChanges;
     @InjectMocks
     private ReplaceWarehouseUseCase replaceWarehouseUseCase;
 
@@ -39,15 +49,15 @@ public class ReplaceWarehouseUseCaseTest {
         var newWarehouse = getNewWarehouse();
         var oldWareHouse = getOldWarehouseSameLocation();
 
-        List<Warehouse> newWarehousesPerLocation = getNewWarehousesAlreadyPresent();
-        List<Warehouse> oldWarehousesPerLocation = getOldWarehousesAlreadyPresent();
+        LocationOccupancy newLocationOccupancy = getNewLocationOccupancy();
+        LocationOccupancy oldLocationOccupancy = getOldLocationOccupancy();
 
         var location = new Location("AMS", 3, 350);
 
         when(locationResolver.resolveByIdentifier(newWarehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(oldWareHouse);
-        when(warehouseStore.getAllByLocation(newWarehouse.location)).thenReturn(newWarehousesPerLocation);
-        when(warehouseStore.getAllByLocation(oldWareHouse.location)).thenReturn(oldWarehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(Optional.of(oldWareHouse));
+        when(warehouseStore.getOccupancyByLocation(newWarehouse.location)).thenReturn(newLocationOccupancy);
+        when(warehouseStore.getOccupancyByLocation(oldWareHouse.location)).thenReturn(oldLocationOccupancy);
 
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         verify(warehouseStore).create(argCaptorForNewWarehouse.capture());
@@ -56,6 +66,8 @@ public class ReplaceWarehouseUseCaseTest {
         assertThat(argCaptorForOldWarehouse.getValue(), equalTo(oldWareHouse));
         assertTrue(warehouseReplaced.isRight(), "Validation exception");
         assertThat(warehouseReplaced.get(), equalTo(newWarehouse));
+        verify(warehouseChanges).fire(argThat(changes -> changes.archived.equals(List.of(oldWareHouse))
+                && changes.created.equals(List.of(newWarehouse))));
     }
 
     @Test
@@ -65,7 +77,7 @@ public class ReplaceWarehouseUseCaseTest {
 
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         assertTrue(warehouseReplaced.isLeft(), "Validation exception");
-        assertThat(warehouseReplaced.getLeft(), equalTo(("Cannot create a warehouse with stock greater than capacity")));
+        assertThat(warehouseReplaced.getLeft().message(), equalTo(("Cannot create a warehouse with stock greater than capacity")));
     }
 
     @Test
@@ -75,7 +87,7 @@ public class ReplaceWarehouseUseCaseTest {
 
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         assertTrue(warehouseReplaced.isLeft(), "Validation exception");
-        assertThat(warehouseReplaced.getLeft(), equalTo(("Location not found")));
+        assertThat(warehouseReplaced.getLeft().message(), equalTo(("Location not found")));
     }
 
     @Test
@@ -85,11 +97,11 @@ public class ReplaceWarehouseUseCaseTest {
         var location = new Location("AMS", 3, 400);
 
         when(locationResolver.resolveByIdentifier(newWarehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(null);
+        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(Optional.empty());
 
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         assertTrue(warehouseReplaced.isLeft(), "Validation exception");
-        assertThat(warehouseReplaced.getLeft(), equalTo(("Warehouse to replace not found")));
+        assertThat(warehouseReplaced.getLeft().message(), equalTo(("Warehouse to replace not found")));
     }
 
     @Test
@@ -100,18 +112,18 @@ public class ReplaceWarehouseUseCaseTest {
         var location = new Location("AMS", 3, 400);
 
         when(locationResolver.resolveByIdentifier(newWarehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(oldWareHouse);
+        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(Optional.of(oldWareHouse));
 
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         assertTrue(warehouseReplaced.isLeft(), "Validation exception");
-        assertThat(warehouseReplaced.getLeft(), equalTo(("Stock match error old warehouse stock 1 but new warehouse stock 0")));
+        assertThat(warehouseReplaced.getLeft().message(), equalTo(("Stock match error old warehouse stock 1 but new warehouse stock 0")));
     }
 
     @Test
     public void givenWarehouse_whenReplacedInTheSameLocationButAddMoreCapacity_thenReturnAValidationError() {
         var newWarehouse = getNewWarehouse();
         var oldWareHouse = getOldWarehouseSameLocation();
-        List<Warehouse> newWarehousesPerLocation = getNewWarehousesAlreadyPresent();
+        LocationOccupancy newLocationOccupancy = getNewLocationOccupancy();
 
         newWarehouse.capacity = 100;
         oldWareHouse.capacity = 80;
@@ -120,19 +132,19 @@ public class ReplaceWarehouseUseCaseTest {
         // in the new warehouse location the current capacity = 300 (200 +100)
         // the delta it will be 20 (100 -80) so it overruns tha maximum capacity
         when(locationResolver.resolveByIdentifier(newWarehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(oldWareHouse);
-        when(warehouseStore.getAllByLocation(newWarehouse.location)).thenReturn(newWarehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(Optional.of(oldWareHouse));
+        when(warehouseStore.getOccupancyByLocation(newWarehouse.location)).thenReturn(newLocationOccupancy);
 
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         assertTrue(warehouseReplaced.isLeft(), "Validation exception");
-        assertThat(warehouseReplaced.getLeft(), equalTo(("Location AMS has reached max capacity")));
+        assertThat(warehouseReplaced.getLeft().message(), equalTo(("Location AMS has reached max capacity")));
     }
 
     @Test
     public void givenWarehouse_whenReplacedInTheDifferentLocationButAddMoreCapacity_thenReturnAValidationError() {
         var newWarehouse = getNewWarehouse();
         var oldWareHouse = getOldWarehouseSameLocation();
-        List<Warehouse> newWarehousesPerLocation = getNewWarehousesAlreadyPresent();
+        LocationOccupancy newLocationOccupancy = getNewLocationOccupancy();
 
         newWarehouse.capacity = 100;
         oldWareHouse.capacity = 80;
@@ -142,29 +154,29 @@ public class ReplaceWarehouseUseCaseTest {
         // in the new warehouse location the current capacity = 300 (200 +100)
         // the delta it will be 100 because old location does not matter
         when(locationResolver.resolveByIdentifier(newWarehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(oldWareHouse);
-        when(warehouseStore.getAllByLocation(newWarehouse.location)).thenReturn(newWarehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(Optional.of(oldWareHouse));
+        when(warehouseStore.getOccupancyByLocation(newWarehouse.location)).thenReturn(newLocationOccupancy);
 
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         assertTrue(warehouseReplaced.isLeft(), "Validation exception");
-        assertThat(warehouseReplaced.getLeft(), equalTo(("Location AMS has reached max capacity")));
+        assertThat(warehouseReplaced.getLeft().message(), equalTo(("Location AMS has reached max capacity")));
     }
     @Test
     public void givenWarehouse_whenReplacedInTheDifferentLocationButMoreTheMaxWarehouseCapacity_thenReturnAValidationError() {
         var newWarehouse = getNewWarehouse();
         var oldWareHouse = getOldWarehouseSameLocation();
         oldWareHouse.location = "NOT_IMPORTANT";
-        List<Warehouse> newWarehousesPerLocation = getNewWarehousesAlreadyPresent();
-        List<Warehouse> oldWarehousesPerLocation = getOldWarehousesAlreadyPresent();
+        LocationOccupancy newLocationOccupancy = getNewLocationOccupancy();
+        LocationOccupancy oldLocationOccupancy = getOldLocationOccupancy();
 
         var location = new Location("AMS", 2, 1000);
         when(locationResolver.resolveByIdentifier(newWarehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(oldWareHouse);
-        when(warehouseStore.getAllByLocation(newWarehouse.location)).thenReturn(newWarehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(Optional.of(oldWareHouse));
+        when(warehouseStore.getOccupancyByLocation(newWarehouse.location)).thenReturn(newLocationOccupancy);
 
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         assertTrue(warehouseReplaced.isLeft(), "Validation exception");
-        assertThat(warehouseReplaced.getLeft(), equalTo(("Location AMS has reached max number of warehouses")));
+        assertThat(warehouseReplaced.getLeft().message(), equalTo(("Location AMS has reached max number of warehouses")));
     }
 
     @Test
@@ -172,14 +184,14 @@ public class ReplaceWarehouseUseCaseTest {
         var newWarehouse = getNewWarehouse();
         var oldWareHouse = getOldWarehouseSameLocation();
         oldWareHouse.location = "NOT_IMPORTANT";
-        List<Warehouse> newWarehousesPerLocation = getNewWarehousesAlreadyPresent();
-        List<Warehouse> oldWarehousesPerLocation = getOldWarehousesAlreadyPresent();
-        oldWareHouse.capacity = oldWarehousesPerLocation.get(0).capacity; //replace this warehouse
+        LocationOccupancy newLocationOccupancy = getNewLocationOccupancy();
+        LocationOccupancy oldLocationOccupancy = getOldLocationOccupancy();
+        oldWareHouse.capacity = 50; //replace warehouse01 of the old location
         var location = new Location("AMS", 10, 1000);
         when(locationResolver.resolveByIdentifier(newWarehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(oldWareHouse);
-        when(warehouseStore.getAllByLocation(newWarehouse.location)).thenReturn(newWarehousesPerLocation);
-        when(warehouseStore.getAllByLocation(oldWareHouse.location)).thenReturn(oldWarehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(Optional.of(oldWareHouse));
+        when(warehouseStore.getOccupancyByLocation(newWarehouse.location)).thenReturn(newLocationOccupancy);
+        when(warehouseStore.getOccupancyByLocation(oldWareHouse.location)).thenReturn(oldLocationOccupancy);
         // current Situation in old warehouse
         // warehouse01 capacity: 50 stock 40
         // warehouse02 capacity: 10 stock 5
@@ -187,7 +199,9 @@ public class ReplaceWarehouseUseCaseTest {
         // If I replace warehouse 1 then the new total capacity will be 10, so I cannot accommodate the current 45
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         assertTrue(warehouseReplaced.isLeft(), "Validation exception");
-        assertThat(warehouseReplaced.getLeft(), equalTo(("Cannot accommodate the current stock level 45 because the new capacity for location AMS is 10")));
+        assertThat(warehouseReplaced.getLeft().message(), equalTo(("Cannot accommodate the current stock level 45 because the new capacity for location AMS is 10")));
+        // moving between locations changes both of them
+        verify(locationLock).lock(List.of("AMS", "NOT_IMPORTANT"));
     }
 
     @Test
@@ -195,14 +209,14 @@ public class ReplaceWarehouseUseCaseTest {
         var newWarehouse = getNewWarehouse();
         newWarehouse.capacity = 34;
         var oldWareHouse = getOldWarehouseSameLocation();
-        List<Warehouse> newWarehousesPerLocation = getNewWarehousesAlreadyPresent();
-        List<Warehouse> oldWarehousesPerLocation = getOldWarehousesAlreadyPresent();
-        oldWareHouse.capacity = oldWarehousesPerLocation.get(0).capacity; //replace this warehouse
+        LocationOccupancy newLocationOccupancy = getNewLocationOccupancy();
+        LocationOccupancy oldLocationOccupancy = getOldLocationOccupancy();
+        oldWareHouse.capacity = 50; //replace warehouse01 of the old location
         var location = new Location("AMS", 10, 1000);
         when(locationResolver.resolveByIdentifier(newWarehouse.location)).thenReturn(location);
-        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(oldWareHouse);
-        when(warehouseStore.getAllByLocation(newWarehouse.location)).thenReturn(newWarehousesPerLocation);
-        when(warehouseStore.getAllByLocation(oldWareHouse.location)).thenReturn(oldWarehousesPerLocation);
+        when(warehouseStore.findByBusinessUnitCode(newWarehouse.businessUnitCode)).thenReturn(Optional.of(oldWareHouse));
+        when(warehouseStore.getOccupancyByLocation(newWarehouse.location)).thenReturn(newLocationOccupancy);
+        when(warehouseStore.getOccupancyByLocation(oldWareHouse.location)).thenReturn(oldLocationOccupancy);
         // current Situation in old warehouse
         // warehouse01 capacity: 50 stock 40
         // warehouse02 capacity: 10 stock 5
@@ -210,16 +224,12 @@ public class ReplaceWarehouseUseCaseTest {
         // If I replace warehouse 1  with newWarehouse then the new total capacity will be  44 (34 + 10), so I cannot accommodate the current 45
         var warehouseReplaced = replaceWarehouseUseCase.replace(newWarehouse);
         assertTrue(warehouseReplaced.isLeft(), "Validation exception");
-        assertThat(warehouseReplaced.getLeft(), equalTo(("Cannot accommodate the current stock level 45 because the new capacity for location AMS is 44")));
+        assertThat(warehouseReplaced.getLeft().message(), equalTo(("Cannot accommodate the current stock level 45 because the new capacity for location AMS is 44")));
     }
 
-    private static List<Warehouse> getNewWarehousesAlreadyPresent() {
-        var warehouse01 = new Warehouse();
-        warehouse01.capacity = 100;
-        var warehouse02 = new Warehouse();
-        warehouse02.capacity = 200;
-        List<Warehouse> warehousesPerLocation = List.of(warehouse01, warehouse02);
-        return warehousesPerLocation;
+    private static LocationOccupancy getNewLocationOccupancy() {
+        // two warehouses with capacity 100 and 200
+        return new LocationOccupancy(2, 300, 0);
     }
 
     private static Warehouse getNewWarehouse() {
@@ -230,16 +240,10 @@ public class ReplaceWarehouseUseCaseTest {
         warehouse.stock = 0;
         return warehouse;
     }
-    private static List<Warehouse> getOldWarehousesAlreadyPresent() {
-        var warehouse01 = new Warehouse();
-        warehouse01.capacity = 50;
-        warehouse01.stock = 40;
-
-        var warehouse02 = new Warehouse();
-        warehouse02.capacity = 10;
-        warehouse02.stock = 5;
-        List<Warehouse> warehousesPerLocation = List.of(warehouse01, warehouse02);
-        return warehousesPerLocation;
+    private static LocationOccupancy getOldLocationOccupancy() {
+        // warehouse01 capacity: 50 stock 40
+        // warehouse02 capacity: 10 stock 5
+        return new LocationOccupancy(2, 60, 45);
     }
     private static Warehouse getOldWarehouseSameLocation() {
         var warehouse = new Warehouse();
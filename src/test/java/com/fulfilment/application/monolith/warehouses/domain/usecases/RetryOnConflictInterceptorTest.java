@@ -0,0 +1,81 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.transaction.RollbackException;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RetryOnConflictInterceptorTest {
+    @Mock
+    private TransactionManager transactionManager;
+    @Mock
+    private InvocationContext context;
+
+    private RetryOnConflictInterceptor interceptor;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        interceptor = new RetryOnConflictInterceptor(transactionManager, 3, Duration.ofMillis(1));
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_NO_TRANSACTION);
+        lenient().when(context.getMethod()).thenReturn(Object.class.getMethod("toString"));
+    }
+
+    @Test
+    public void givenAConflict_whenTheNextAttemptSucceeds_thenItsResultIsReturned() throws Exception {
+        when(context.proceed()).thenThrow(new OptimisticLockException()).thenReturn("replaced");
+
+        assertThat(interceptor.retry(context), equalTo("replaced"));
+        verify(context, times(2)).proceed();
+    }
+
+    @Test
+    public void givenAConflictAtCommit_whenRetried_thenTheWrappedConflictIsRecognised() throws Exception {
+        var atCommit = new RollbackException("rolled back");
+        atCommit.initCause(new OptimisticLockException());
+        when(context.proceed()).thenThrow(atCommit).thenReturn("replaced");
+
+        assertThat(interceptor.retry(context), equalTo("replaced"));
+    }
+
+    @Test
+    public void givenAPersistentConflict_whenTheAttemptsAreExhausted_thenTheConflictIsThrown() throws Exception {
+        when(context.proceed()).thenThrow(new OptimisticLockException());
+
+        assertThrows(OptimisticLockException.class, () -> interceptor.retry(context));
+        verify(context, times(3)).proceed();
+    }
+
+    @Test
+    public void givenAnotherFailure_whenIntercepted_thenItIsNotRetried() throws Exception {
+        when(context.proceed()).thenThrow(new IllegalStateException());
+
+        assertThrows(IllegalStateException.class, () -> interceptor.retry(context));
+        verify(context, times(1)).proceed();
+    }
+
+    @Test
+    public void givenAnEnclosingTransaction_whenAConflictHappens_thenItIsLeftToTheCaller() throws Exception {
+        when(transactionManager.getStatus()).thenReturn(Status.STATUS_ACTIVE);
+        when(context.proceed()).thenThrow(new OptimisticLockException());
+
+        assertThrows(OptimisticLockException.class, () -> interceptor.retry(context));
+        verify(context, times(1)).proceed();
+    }
+}
@@ -0,0 +1,89 @@
+package com.fulfilment.application.monolith.warehouses.placement;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseChanges;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class FreeCapacityIndexTest {
+
+    private final Map<String, LocationOccupancy> occupancies = new HashMap<>();
+    private final List<List<String>> reads = new ArrayList<>();
+
+    private FreeCapacityIndex freeCapacityIndex;
+
+    @BeforeEach
+    public void setUp() {
+        occupancies.put("ZWOLLE-001", new LocationOccupancy(1, 30, 10));
+        occupancies.put("AMSTERDAM-001", new LocationOccupancy(2, 40, 5));
+        occupancies.put("TILBURG-001", new LocationOccupancy(1, 10, 5));
+        List<Location> catalogue = List.of(
+                new Location("ZWOLLE-001", 2, 40),
+                new Location("AMSTERDAM-001", 5, 100),
+                new Location("TILBURG-001", 1, 40),
+                new Location("HELMOND-001", 1, 45));
+        freeCapacityIndex = new FreeCapacityIndex(() -> catalogue, locations -> {
+            reads.add(List.copyOf(locations));
+            var read = new HashMap<String, LocationOccupancy>();
+            locations.forEach(location -> read.put(location, occupancies.getOrDefault(location, LocationOccupancy.EMPTY)));
+            return read;
+        });
+        freeCapacityIndex.refreshAll();
+    }
+
+    @Test
+    public void testLocationsThatFitAreListedTightestFirst() {
+        var locations = freeCapacityIndex.locationsFor(10, 10);
+
+        // TILBURG-001 has capacity left, but no room for another warehouse
+        assertThat(locations.stream().map(l -> l.location).toList(), contains("ZWOLLE-001", "HELMOND-001", "AMSTERDAM-001"));
+        assertThat(locations.get(0).freeCapacity, is(10L));
+        assertThat(locations.get(2).freeWarehouseSlots, is(3L));
+        assertThat(freeCapacityIndex.locationsFor(11, 10).stream().map(l -> l.location).toList(), contains("HELMOND-001", "AMSTERDAM-001"));
+        assertThat(freeCapacityIndex.locationsFor(61, 10), empty());
+        assertThat(freeCapacityIndex.locationsFor(0, 1), hasSize(1));
+    }
+
+    @Test
+    public void testCommittedChangesRefreshOnlyTheirLocations() {
+        reads.clear();
+        occupancies.put("HELMOND-001", new LocationOccupancy(1, 45, 0));
+        occupancies.put("ZWOLLE-001", new LocationOccupancy(0, 0, 0));
+
+        freeCapacityIndex.onCommitted(WarehouseChanges.replaced(warehouse("ZWOLLE-001"), warehouse("HELMOND-001")));
+        var locations = freeCapacityIndex.locationsFor(40, 10);
+
+        assertThat(reads, hasSize(1));
+        assertThat(reads.get(0), containsInAnyOrder("ZWOLLE-001", "HELMOND-001"));
+        assertThat(locations.stream().map(l -> l.location).toList(), contains("ZWOLLE-001", "AMSTERDAM-001"));
+        freeCapacityIndex.locationsFor(40, 10);
+        assertThat(reads, hasSize(1));
+    }
+
+    @Test
+    public void testLocationsMissingFromTheCatalogueAreIgnored() {
+        reads.clear();
+
+        freeCapacityIndex.onCommitted(WarehouseChanges.created(List.of(warehouse("UNKNOWN-001"))));
+
+        assertThat(freeCapacityIndex.locationsFor(0, 10), hasSize(3));
+        assertThat(reads, empty());
+    }
+
+    private static Warehouse warehouse(String location) {
+        var warehouse = new Warehouse();
+        warehouse.businessUnitCode = "MWH.001";
+        warehouse.location = location;
+        return warehouse;
+    }
+}
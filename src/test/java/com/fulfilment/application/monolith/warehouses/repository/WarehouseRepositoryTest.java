@@ -2,48 +2,95 @@ package com.fulfilment.application.monolith.warehouses.repository;
 
 import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import io.quarkus.test.TestTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import org.junit.jupiter.api.Test;
 
-import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
 @QuarkusTest
-public class WarehouseRepositoryTest {
+public class WarehouseRepositoryTest extends WarehouseStoreBehaviour {
 
     @Inject
     private WarehouseRepository warehouseRepository;
 
+    @Override
+    protected WarehouseStore store() {
+        return warehouseRepository;
+    }
+
+    @Override
+    protected void flush() {
+        warehouseRepository.flush();
+    }
+
     @Test
     @TestTransaction
-    public void testFindByBusinessUnitCode() {
-        var actualWarehouse = warehouseRepository.findByBusinessUnitCode("MWH.001");
-        assertThat(actualWarehouse, notNullValue());
+    public void testUpdateOfAMissingWarehouseDoesNothing() {
+        var warehouse = new Warehouse();
+        warehouse.businessUnitCode = "FAKE_BUSINESS_UNIT_CODE";
+
+        warehouseRepository.update(warehouse);
 
-        var notExistingWarehouse = warehouseRepository.findByBusinessUnitCode("FAKE_BUSINESS_UNIT_CODE");
-        assertThat(notExistingWarehouse, nullValue());
+        assertThat(warehouseRepository.count("archivedAt IS NOT NULL"), is(0L));
     }
+
     @Test
     @TestTransaction
-    public void testCreateWarehouse() {
-       var warehouse = new Warehouse();
-       final String businessUnitCode =  "NEW_BU";
-       warehouse.businessUnitCode =  businessUnitCode;
-       warehouse.stock = 10;
-       warehouse.capacity= 20;
-       warehouse.location = "Amsterdam";
-       warehouse.archivedAt = LocalDateTime.now();
-
-       warehouseRepository.create(warehouse);
-
-        var actualWarehouse = warehouseRepository.findByBusinessUnitCode(businessUnitCode);
-        assertThat(actualWarehouse, notNullValue());
-        assertThat(actualWarehouse.stock, is(10));
-        assertThat(actualWarehouse.archivedAt, nullValue());
+    public void testCreatedWarehouseEqualsTheOneReadBack() {
+        var warehouse = new Warehouse();
+        warehouse.businessUnitCode = "NEW_BU";
+        warehouse.location = "AMSTERDAM-001";
+        warehouse.capacity = 20;
+        warehouse.stock = 5;
+        warehouseRepository.create(warehouse);
+        warehouseRepository.flush();
+        warehouseRepository.getEntityManager().clear();
+
+        var readBack = warehouseRepository.findByBusinessUnitCode("NEW_BU").orElseThrow();
+
+        // the events of the use cases carry the created warehouse, the archive reads it back
+        assertThat(readBack.createdAt, is(warehouse.createdAt));
+    }
+
+    @Test
+    @TestTransaction
+    public void testKeysetPaginationProjectedIntoApiWarehouses() {
+        var firstPage = warehouseRepository.getApiWarehousesAfter(null, 2);
+        assertThat(firstPage.stream().map(w -> w.getBusinessUnitCode()).toList(), contains("MWH.001", "MWH.012"));
+        assertThat(firstPage.get(0).getLocation(), is("ZWOLLE-001"));
+        assertThat(firstPage.get(0).getStock(), is(10));
+
+        var secondPage = warehouseRepository.getApiWarehousesAfter("MWH.012", 2);
+        assertThat(secondPage.stream().map(w -> w.getBusinessUnitCode()).toList(), contains("MWH.023"));
+    }
+
+    @Test
+    @TestTransaction
+    public void testActiveLookupsUseThePartialIndexes() {
+        // a long archived history for every business unit, as it builds up with replacements
+        warehouseRepository.getEntityManager().createNativeQuery(
+                "INSERT INTO warehouse(id, businessUnitCode, location, capacity, stock, createdAt, archivedAt) "
+                        + "SELECT 100000 + g, 'MWH.' || (g % 1000), 'LOCATION-' || (g % 100), 10, 1, now(), now() "
+                        + "FROM generate_series(1, 20000) g")
+                .executeUpdate();
+        warehouseRepository.getEntityManager().createNativeQuery("ANALYZE warehouse").executeUpdate();
+
+        assertThat(explain("SELECT * FROM warehouse WHERE businessUnitCode = 'MWH.001' AND archivedAt IS NULL"),
+                containsString("warehouse_active_bu_code_uidx"));
+        assertThat(explain("SELECT count(*), sum(capacity), sum(stock) FROM warehouse WHERE location = 'ZWOLLE-001' AND archivedAt IS NULL"),
+                containsString("warehouse_active_location_idx"));
+    }
 
+    @SuppressWarnings("unchecked")
+    private String explain(String sql) {
+        return String.join("\n", (List<String>) warehouseRepository.getEntityManager()
+                .createNativeQuery("EXPLAIN " + sql)
+                .getResultList());
     }
 }
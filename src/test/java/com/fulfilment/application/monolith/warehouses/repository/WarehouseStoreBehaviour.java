@@ -0,0 +1,185 @@
+package com.fulfilment.application.monolith.warehouses.repository;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import io.quarkus.test.TestTransaction;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// what every WarehouseStore adapter does, run against the warehouses of import.sql: MWH.001 in ZWOLLE-001, MWH.012 in
+// AMSTERDAM-001 and MWH.023 in TILBURG-001 (capacity 30, stock 27)
+public abstract class WarehouseStoreBehaviour {
+
+    protected abstract WarehouseStore store();
+
+    // makes pending writes reach the store, so that its constraints are checked
+    protected abstract void flush();
+
+    @Test
+    @TestTransaction
+    public void testFindByBusinessUnitCode() {
+        var actualWarehouse = store().findByBusinessUnitCode("MWH.001");
+        assertThat(actualWarehouse.isPresent(), is(true));
+
+        var notExistingWarehouse = store().findByBusinessUnitCode("FAKE_BUSINESS_UNIT_CODE");
+        assertThat(notExistingWarehouse.isPresent(), is(false));
+    }
+
+    @Test
+    @TestTransaction
+    public void testFindRevisionByBusinessUnitCodeMatchesTheActiveWarehouse() {
+        var warehouse = store().findByBusinessUnitCode("MWH.001").orElseThrow();
+
+        var revision = store().findRevisionByBusinessUnitCode("MWH.001").orElseThrow();
+
+        assertThat(revision.createdAt, is(warehouse.createdAt));
+        assertThat(revision.version, is(warehouse.version));
+        assertThat(store().findRevisionByBusinessUnitCode("FAKE_BUSINESS_UNIT_CODE").isPresent(), is(false));
+    }
+
+    @Test
+    @TestTransaction
+    public void testRemoveDeletesTheActiveWarehouse() {
+        store().remove(store().findByBusinessUnitCode("MWH.023").orElseThrow());
+        flush();
+
+        assertThat(store().findByBusinessUnitCode("MWH.023").isPresent(), is(false));
+        assertThat(store().getOccupancyByLocation("TILBURG-001").numberOfWarehouses, is(0L));
+        assertThat(store().getAll(), hasSize(2));
+    }
+
+    @Test
+    @TestTransaction
+    public void testCreateWarehouse() {
+       var warehouse = new Warehouse();
+       final String businessUnitCode =  "NEW_BU";
+       warehouse.businessUnitCode =  businessUnitCode;
+       warehouse.stock = 10;
+       warehouse.capacity= 20;
+       warehouse.location = "Amsterdam";
+       warehouse.archivedAt = LocalDateTime.now();
+
+       store().create(warehouse);
+
+        var actualWarehouse = store().findByBusinessUnitCode(businessUnitCode).orElseThrow();
+        assertThat(actualWarehouse.stock, is(10));
+        assertThat(actualWarehouse.archivedAt, nullValue());
+
+    }
+
+    @Test
+    @TestTransaction
+    public void testCreateIfWithinLimitsInsertsTheWarehouse() {
+        var warehouse = new Warehouse();
+        warehouse.businessUnitCode = "NEW_BU";
+        warehouse.location = "TILBURG-001";
+        warehouse.capacity = 20;
+        warehouse.stock = 5;
+
+        var outcome = store().createIfWithinLimits(warehouse, 2, 50);
+
+        assertThat(outcome.created, is(true));
+        assertThat(outcome.occupancy.numberOfWarehouses, is(1L));
+        assertThat(outcome.occupancy.totalCapacity, is(30L));
+        var actualWarehouse = store().findByBusinessUnitCode("NEW_BU").orElseThrow();
+        assertThat(actualWarehouse.capacity, is(20));
+        assertThat(actualWarehouse.version, is(0L));
+    }
+
+    @Test
+    @TestTransaction
+    public void testCreateIfWithinLimitsRefusesWhatTheLocationCannotTake() {
+        var warehouse = new Warehouse();
+        warehouse.businessUnitCode = "NEW_BU";
+        warehouse.location = "TILBURG-001";
+        warehouse.capacity = 21;
+        warehouse.stock = 5;
+
+        var tooMuchCapacity = store().createIfWithinLimits(warehouse, 2, 50);
+        var tooManyWarehouses = store().createIfWithinLimits(warehouse, 1, 100);
+        warehouse.businessUnitCode = "MWH.001";
+        var alreadyExists = store().createIfWithinLimits(warehouse, 2, 100);
+
+        assertThat(tooMuchCapacity.created, is(false));
+        assertThat(tooManyWarehouses.created, is(false));
+        assertThat(alreadyExists.created, is(false));
+        assertThat(alreadyExists.alreadyExists, is(true));
+        assertThat(store().findByBusinessUnitCode("NEW_BU").isPresent(), is(false));
+    }
+
+    @Test
+    @TestTransaction
+    public void testUpdateArchivesTheActiveWarehouse() {
+        var warehouse = store().findByBusinessUnitCode("MWH.012").orElseThrow();
+
+        store().update(warehouse);
+
+        assertThat(store().findByBusinessUnitCode("MWH.012").isPresent(), is(false));
+    }
+
+    @Test
+    @TestTransaction
+    public void testUpdateOfAWarehouseChangedSinceItWasReadIsAConflict() {
+        var warehouse = store().findByBusinessUnitCode("MWH.023").orElseThrow();
+        var staleCopy = store().findByBusinessUnitCode("MWH.023").orElseThrow();
+        assertThat(warehouse.version, notNullValue());
+
+        store().update(warehouse);
+
+        assertThrows(OptimisticLockException.class, () -> store().update(staleCopy));
+    }
+
+    @Test
+    @TestTransaction
+    public void testOccupancyByLocation() {
+        var occupancy = store().getOccupancyByLocation("TILBURG-001");
+        assertThat(occupancy.numberOfWarehouses, is(1L));
+        assertThat(occupancy.totalCapacity, is(30L));
+        assertThat(occupancy.totalStock, is(27L));
+
+        var emptyOccupancy = store().getOccupancyByLocation("HELMOND-001");
+        assertThat(emptyOccupancy.numberOfWarehouses, is(0L));
+        assertThat(emptyOccupancy.totalCapacity, is(0L));
+        assertThat(emptyOccupancy.totalStock, is(0L));
+    }
+
+    @Test
+    @TestTransaction
+    public void testKeysetPagination() {
+        var firstPage = store().getAllAfter(null, 2);
+        assertThat(firstPage.stream().map(w -> w.businessUnitCode).toList(), contains("MWH.001", "MWH.012"));
+
+        var secondPage = store().getAllAfter(firstPage.get(1).businessUnitCode, 2);
+        assertThat(secondPage.stream().map(w -> w.businessUnitCode).toList(), contains("MWH.023"));
+    }
+
+    @Test
+    @TestTransaction
+    public void testStreamAllActive() {
+        try (var warehouses = store().streamAllActive()) {
+            assertThat(warehouses.map(w -> w.businessUnitCode).toList(), contains("MWH.001", "MWH.012", "MWH.023"));
+        }
+    }
+
+    @Test
+    @TestTransaction
+    public void testActiveBusinessUnitCodeIsUnique() {
+        var warehouse = new Warehouse();
+        warehouse.businessUnitCode = "MWH.001";
+        warehouse.stock = 10;
+        warehouse.capacity = 20;
+        warehouse.location = "ZWOLLE-001";
+
+        assertThrows(PersistenceException.class, () -> {
+            store().create(warehouse);
+            flush();
+        });
+    }
+}